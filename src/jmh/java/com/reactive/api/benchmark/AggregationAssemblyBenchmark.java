@@ -0,0 +1,83 @@
+package com.reactive.api.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.reactive.api.aggregation.AggregationMetrics;
+import com.reactive.api.aggregation.AggregationResult;
+import com.reactive.api.aggregation.AggregationService;
+import com.reactive.api.aggregation.DefaultAggregationService;
+import com.reactive.api.config.ConfigProperties;
+import com.reactive.api.pricing.DefaultPricingService;
+import com.reactive.api.shipment.DefaultShipmentService;
+import com.reactive.api.track.DefaultTrackService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The merge of the three services into the aggregation result, as the requests run it, over clients answering right
+ * away: blocking on the collected result, and streaming the events.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AggregationAssemblyBenchmark {
+
+    @Param({"10", "300"})
+    private int keys;
+
+    private Optional<List<String>> orderNumbers;
+
+    private Optional<List<String>> countryCodes;
+
+    private AggregationService aggregationService;
+
+    @Setup
+    public void setUp() {
+        // without a configuration, Logback logs every aggregation at debug level
+        ((Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.INFO);
+
+        orderNumbers = Optional.of(BenchmarkData.orderNumbers(keys));
+        countryCodes = Optional.of(BenchmarkData.countryCodes(keys));
+
+        // the requests without a deadline are cut at the SLA, as in application.yml
+        ConfigProperties properties = new ConfigProperties();
+        properties.setSla(Duration.ofSeconds(5));
+
+        aggregationService = new DefaultAggregationService(
+            new DefaultShipmentService(orderNumber -> Mono.just(BenchmarkData.shipment(orderNumber))),
+            new DefaultTrackService(orderNumber -> Mono.just(BenchmarkData.track(orderNumber))),
+            new DefaultPricingService(countryCode -> Mono.just(BenchmarkData.pricing(countryCode)), Optional.empty()),
+            properties,
+            new AggregationMetrics(new SimpleMeterRegistry()));
+    }
+
+    @Benchmark
+    public AggregationResult aggregate() {
+        return aggregationService.aggregate(orderNumbers, orderNumbers, countryCodes).block();
+    }
+
+    @Benchmark
+    public Long aggregateStream() {
+        return aggregationService.aggregateStream(orderNumbers, orderNumbers, countryCodes).count().block();
+    }
+}
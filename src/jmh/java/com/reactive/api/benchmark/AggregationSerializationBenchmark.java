@@ -0,0 +1,78 @@
+package com.reactive.api.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.reactive.api.aggregation.Aggregation;
+import com.reactive.api.aggregation.AggregationResult;
+import com.reactive.api.aggregation.AggregationResultEncoder;
+import com.reactive.api.config.JacksonConfiguration;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.http.MediaType;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization of the aggregation responses: generic Jackson with the object mapper of the application, against the
+ * dedicated encoder writing into pooled Netty buffers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AggregationSerializationBenchmark {
+
+    private static final ResolvableType RESULT_TYPE = ResolvableType.forClass(AggregationResult.class);
+
+    @Param({"10", "300"})
+    private int keys;
+
+    private ObjectMapper mapper;
+
+    private Aggregation aggregation;
+
+    private AggregationResultEncoder encoder;
+
+    private AggregationResult result;
+
+    private final DataBufferFactory bufferFactory = new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT);
+
+    @Setup
+    public void setUp() {
+        mapper = new JacksonConfiguration().objectMapper();
+        aggregation = BenchmarkData.aggregation(keys);
+        encoder = new AggregationResultEncoder(mapper.getFactory());
+        result = BenchmarkData.aggregationResult(keys);
+    }
+
+    @Benchmark
+    public byte[] serializeAggregation() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(aggregation);
+    }
+
+    @Benchmark
+    public int encodeAggregationResult() {
+        DataBuffer buffer = encoder.encodeValue(result, bufferFactory, RESULT_TYPE, MediaType.APPLICATION_JSON, Map.of());
+        int size = buffer.readableByteCount();
+        DataBufferUtils.release(buffer);
+        return size;
+    }
+}
@@ -0,0 +1,94 @@
+package com.reactive.api.benchmark;
+
+import com.reactive.api.aggregation.Aggregation;
+import com.reactive.api.aggregation.AggregationResult;
+import com.reactive.api.pricing.Pricing;
+import com.reactive.api.shipment.Product;
+import com.reactive.api.shipment.Shipment;
+import com.reactive.api.track.Status;
+import com.reactive.api.track.Track;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * Deterministic inputs shared by the benchmarks. One key in five has no value, like the keys the backends have nothing
+ * for, so that the empty values are exercised as well.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+class BenchmarkData {
+
+    private static final Product[] PRODUCTS = Product.values();
+    private static final Status[] STATUSES = Status.values();
+    private static final List<String> COUNTRY_CODES = List.of(Locale.getISOCountries());
+
+    static List<String> orderNumbers(int count) {
+        return IntStream.range(0, count)
+            .mapToObj(i -> String.valueOf(100_000_000 + i))
+            .toList();
+    }
+
+    static List<String> countryCodes(int count) {
+        return COUNTRY_CODES.subList(0, Math.min(count, COUNTRY_CODES.size()));
+    }
+
+    static Shipment shipment(String orderNumber) {
+        int i = Integer.parseInt(orderNumber);
+        if (i % 5 == 0) {
+            return new Shipment(orderNumber, Optional.empty());
+        }
+
+        List<Product> products = IntStream.range(0, 1 + i % 6)
+            .mapToObj(p -> PRODUCTS[(i + p) % PRODUCTS.length])
+            .toList();
+        return new Shipment(orderNumber, Optional.of(products));
+    }
+
+    static Track track(String orderNumber) {
+        int i = Integer.parseInt(orderNumber);
+        return new Track(orderNumber, i % 5 == 0 ? Optional.empty() : Optional.of(STATUSES[i % STATUSES.length]));
+    }
+
+    static Pricing pricing(String countryCode) {
+        int hash = countryCode.hashCode();
+        return new Pricing(countryCode, hash % 5 == 0 ? OptionalDouble.empty() : OptionalDouble.of(Math.abs(hash) / 97.0));
+    }
+
+    static Aggregation aggregation(int keys) {
+        List<String> orderNumbers = orderNumbers(keys);
+
+        return Aggregation.builder()
+            .shipments(toMap(orderNumbers, orderNumber -> shipment(orderNumber).getProducts()))
+            .track(toMap(orderNumbers, orderNumber -> track(orderNumber).getStatus()))
+            .pricing(toMap(countryCodes(keys), countryCode -> pricing(countryCode).getPrice()))
+            .unresolved(Map.of())
+            .build();
+    }
+
+    static AggregationResult aggregationResult(int keys) {
+        List<String> orderNumbers = orderNumbers(keys);
+
+        return new AggregationResult(
+            toMap(orderNumbers, orderNumber -> shipment(orderNumber).getProducts().orElse(null)),
+            toMap(orderNumbers, orderNumber -> track(orderNumber).getStatus().orElse(null)),
+            toMap(countryCodes(keys), countryCode -> {
+                OptionalDouble price = pricing(countryCode).getPrice();
+                return price.isPresent() ? price.getAsDouble() : null;
+            }),
+            Map.of());
+    }
+
+    private static <V> Map<String, V> toMap(List<String> keys, Function<String, V> value) {
+        Map<String, V> map = new HashMap<>();
+        keys.forEach(key -> map.put(key, value.apply(key)));
+        return map;
+    }
+}
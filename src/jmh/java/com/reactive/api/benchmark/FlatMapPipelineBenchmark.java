@@ -0,0 +1,56 @@
+package com.reactive.api.benchmark;
+
+import com.reactive.api.shipment.Shipment;
+import com.reactive.api.shipment.ShipmentClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overhead of the Reactor operators of the per-key {@code flatMap} fan-out, against a plain {@code map} over the
+ * same keys doing the same work.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FlatMapPipelineBenchmark {
+
+    @Param({"10", "300"})
+    private int keys;
+
+    private List<String> orderNumbers;
+
+    private ShipmentClient client;
+
+    @Setup
+    public void setUp() {
+        orderNumbers = BenchmarkData.orderNumbers(keys);
+        client = orderNumber -> Mono.just(BenchmarkData.shipment(orderNumber));
+    }
+
+    @Benchmark
+    public List<Shipment> perKeyFlatMap() {
+        return client.getShipment(orderNumbers).collectList().block();
+    }
+
+    @Benchmark
+    public List<Shipment> plainMap() {
+        return Flux.fromIterable(orderNumbers).map(BenchmarkData::shipment).collectList().block();
+    }
+}
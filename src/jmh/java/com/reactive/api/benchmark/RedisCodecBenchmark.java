@@ -0,0 +1,83 @@
+package com.reactive.api.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.reactive.api.config.ConfigProperties;
+import com.reactive.api.config.JacksonConfiguration;
+import com.reactive.api.pricing.Pricing;
+import com.reactive.api.pricing.PricingRedisSerializer;
+import com.reactive.api.shipment.Shipment;
+import com.reactive.api.shipment.ShipmentRedisSerializer;
+import com.reactive.api.track.Track;
+import com.reactive.api.track.TrackRedisSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Round trips of the cached values through the Redis serializers configured in {@code ReactiveRedisConfiguration},
+ * for both codecs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RedisCodecBenchmark {
+
+    @Param({"JSON", "BINARY"})
+    private ConfigProperties.Codec codec;
+
+    private ShipmentRedisSerializer shipmentSerializer;
+
+    private TrackRedisSerializer trackSerializer;
+
+    private PricingRedisSerializer pricingSerializer;
+
+    private Shipment shipment;
+
+    private Track track;
+
+    private Pricing pricing;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper mapper = new JacksonConfiguration().objectMapper();
+        boolean binary = codec == ConfigProperties.Codec.BINARY;
+
+        shipmentSerializer = new ShipmentRedisSerializer(new Jackson2JsonRedisSerializer<>(mapper, Shipment.class), binary);
+        trackSerializer = new TrackRedisSerializer(new Jackson2JsonRedisSerializer<>(mapper, Track.class), binary);
+        pricingSerializer = new PricingRedisSerializer(new Jackson2JsonRedisSerializer<>(mapper, Pricing.class), binary);
+
+        long cachedAt = System.currentTimeMillis();
+        shipment = BenchmarkData.shipment("109347263").withCachedAt(cachedAt);
+        track = BenchmarkData.track("109347263").withCachedAt(cachedAt);
+        pricing = BenchmarkData.pricing("NL").withCachedAt(cachedAt);
+    }
+
+    @Benchmark
+    public Shipment shipmentRoundTrip() {
+        return shipmentSerializer.deserialize(shipmentSerializer.serialize(shipment));
+    }
+
+    @Benchmark
+    public Track trackRoundTrip() {
+        return trackSerializer.deserialize(trackSerializer.serialize(track));
+    }
+
+    @Benchmark
+    public Pricing pricingRoundTrip() {
+        return pricingSerializer.deserialize(pricingSerializer.serialize(pricing));
+    }
+}
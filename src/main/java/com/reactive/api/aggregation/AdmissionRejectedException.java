@@ -0,0 +1,24 @@
+package com.reactive.api.aggregation;
+
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+
+import java.time.Duration;
+
+/**
+ * Raised when an aggregation is not started at all, to protect the ones already running. Answered with the status and
+ * a {@code Retry-After} header.
+ */
+@Getter
+class AdmissionRejectedException extends RuntimeException {
+
+    private final HttpStatus status;
+
+    private final Duration retryAfter;
+
+    AdmissionRejectedException(HttpStatus status, Duration retryAfter, String message) {
+        super(message, null, false, false);
+        this.status = status;
+        this.retryAfter = retryAfter;
+    }
+}
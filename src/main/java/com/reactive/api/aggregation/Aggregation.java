@@ -1,5 +1,6 @@
 package com.reactive.api.aggregation;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.reactive.api.shipment.Product;
 import com.reactive.api.track.Status;
 import lombok.AllArgsConstructor;
@@ -13,14 +14,26 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.OptionalDouble;
 
-
+/**
+ * The aggregation as the clients of the API read it. The application writes it out of an {@link AggregationResult}.
+ */
 @Data
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
 public class Aggregation {
 
+    @Builder.Default
     private Map<String, Optional<List<Product>>> shipments = new HashMap<>();
+    @Builder.Default
     private Map<String, Optional<Status>> track = new HashMap<>();
+    @Builder.Default
     private Map<String, OptionalDouble> pricing = new HashMap<>();
+
+    /**
+     * Keys that could not be resolved before the SLA deadline, per section. Only present when the result is partial.
+     */
+    @Builder.Default
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private Map<String, List<String>> unresolved = new HashMap<>();
 }
@@ -0,0 +1,154 @@
+package com.reactive.api.aggregation;
+
+import com.reactive.api.client.Deadline;
+import com.reactive.api.config.ConfigProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Admission control in front of the aggregations.
+ * <p>
+ * An aggregation is rejected with a 429 when too many aggregations, or too many keys in total, are already in flight.
+ * It is rejected with a 503 when it is predicted to miss its deadline: the prediction is the recent latency of the
+ * aggregations, scaled by how much more of them are in flight now than when that latency was measured, since they
+ * share the same backends. An idle server admits everything, and so does a busy one for one aggregation at a time when
+ * the recent latency alone would fit its deadline: only the aggregations admitted despite the prediction tell that the
+ * load has eased, since the rejected ones measure nothing.
+ * <p>
+ * Rejecting early keeps the accepted aggregations within the SLA, instead of slowing all of them down until they are
+ * cut at the deadline with partial results.
+ */
+@Component
+class AggregationAdmission {
+
+    private static final double SMOOTHING = 0.1;
+
+    private final ConfigProperties.Admission properties;
+
+    private final Counter rejectedConcurrency;
+    private final Counter rejectedFanOut;
+    private final Counter rejectedDeadline;
+
+    private int inFlight;
+
+    private long outstandingKeys;
+
+    private double latencyNanos;
+
+    private double inFlightAtCompletion;
+
+    private boolean probing;
+
+    AggregationAdmission(ConfigProperties configProperties, MeterRegistry meterRegistry) {
+        this.properties = configProperties.getAdmission();
+        this.rejectedConcurrency = counter(meterRegistry, "concurrency");
+        this.rejectedFanOut = counter(meterRegistry, "fanout");
+        this.rejectedDeadline = counter(meterRegistry, "deadline");
+
+        Gauge.builder("aggregation.in.flight", this, AggregationAdmission::inFlight)
+            .register(meterRegistry);
+    }
+
+    <T> Mono<T> execute(AggregationPlan plan, Deadline deadline, Supplier<Mono<T>> aggregate) {
+        return executeStream(plan, deadline, () -> aggregate.get().flux()).singleOrEmpty();
+    }
+
+    /**
+     * A streamed aggregation is in flight until its last entry is sent.
+     */
+    <T> Flux<T> executeStream(AggregationPlan plan, Deadline deadline, Supplier<Flux<T>> aggregate) {
+        if (!properties.isEnabled()) {
+            return Flux.defer(aggregate);
+        }
+
+        return Flux.defer(() -> {
+            int keys = plan.keyCount();
+            boolean probe = admit(keys, deadline.remaining());
+
+            long start = System.nanoTime();
+            return Flux.defer(aggregate)
+                .doOnComplete(() -> completed(System.nanoTime() - start))
+                .doFinally(signal -> release(keys, probe));
+        });
+    }
+
+    // true when the aggregation is admitted as the probe of a prediction
+    private synchronized boolean admit(int keys, Duration remaining) {
+        if (inFlight >= properties.getMaxConcurrent()) {
+            rejectedConcurrency.increment();
+            throw rejection(HttpStatus.TOO_MANY_REQUESTS, properties.getRetryAfter(), "Too many aggregations in flight");
+        }
+
+        // a single aggregation is admitted however many keys it has
+        if (inFlight > 0 && outstandingKeys + keys > properties.getMaxOutstandingKeys()) {
+            rejectedFanOut.increment();
+            throw rejection(HttpStatus.TOO_MANY_REQUESTS, properties.getRetryAfter(), "Too many keys in flight");
+        }
+
+        boolean probe = false;
+        if (inFlight > 0 && latencyNanos > 0) {
+            double load = (inFlight + 1) / Math.max(inFlightAtCompletion, 1);
+            long predictedNanos = (long) (latencyNanos * Math.max(load, 1));
+            long excessNanos = predictedNanos - remaining.toNanos();
+
+            if (excessNanos > 0) {
+                probe = !probing && latencyNanos <= remaining.toNanos();
+                if (!probe) {
+                    rejectedDeadline.increment();
+                    throw rejection(HttpStatus.SERVICE_UNAVAILABLE, Duration.ofNanos(excessNanos),
+                        "Aggregation predicted to miss its deadline");
+                }
+                probing = true;
+            }
+        }
+
+        inFlight++;
+        outstandingKeys += keys;
+        return probe;
+    }
+
+    private synchronized void completed(long elapsedNanos) {
+        if (latencyNanos == 0) {
+            latencyNanos = elapsedNanos;
+            inFlightAtCompletion = inFlight;
+            return;
+        }
+
+        latencyNanos += SMOOTHING * (elapsedNanos - latencyNanos);
+        inFlightAtCompletion += SMOOTHING * (inFlight - inFlightAtCompletion);
+    }
+
+    private synchronized void release(int keys, boolean probe) {
+        inFlight--;
+        outstandingKeys -= keys;
+        if (probe) {
+            probing = false;
+        }
+    }
+
+    private synchronized int inFlight() {
+        return inFlight;
+    }
+
+    // Retry-After is in whole seconds
+    private AdmissionRejectedException rejection(HttpStatus status, Duration retryAfter, String message) {
+        Duration atLeast = retryAfter.compareTo(properties.getRetryAfter()) > 0 ? retryAfter : properties.getRetryAfter();
+        long seconds = Math.max(1, (atLeast.toMillis() + 999) / 1000);
+
+        return new AdmissionRejectedException(status, Duration.ofSeconds(seconds), message);
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("aggregation.rejected")
+            .tag("reason", reason)
+            .register(meterRegistry);
+    }
+}
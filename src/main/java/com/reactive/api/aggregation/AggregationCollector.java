@@ -0,0 +1,83 @@
+package com.reactive.api.aggregation;
+
+import com.reactive.api.shipment.Product;
+import com.reactive.api.track.Status;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Builds an {@link AggregationResult} out of the entries resolved so far, and keeps track of the keys that are still
+ * unresolved. Not thread-safe: entries must be added sequentially.
+ */
+class AggregationCollector {
+
+    static final String SHIPMENTS = "shipments";
+    static final String TRACK = "track";
+    static final String PRICING = "pricing";
+
+    private final Map<String, List<Product>> shipments = new HashMap<>();
+    private final Map<String, Status> track = new HashMap<>();
+    private final Map<String, Double> pricing = new HashMap<>();
+
+    private final Set<String> pendingShipments;
+    private final Set<String> pendingTrack;
+    private final Set<String> pendingPricing;
+
+    AggregationCollector(AggregationPlan plan) {
+        this.pendingShipments = new LinkedHashSet<>(plan.getShipmentsOrderNumbers());
+        this.pendingTrack = new LinkedHashSet<>(plan.getTrackOrderNumbers());
+        this.pendingPricing = new LinkedHashSet<>(plan.getPricingCountryCodes());
+    }
+
+    @SuppressWarnings("unchecked")
+    void add(AggregationEvent event) {
+        String key = event.getKey();
+        Object value = event.getValue();
+
+        switch (event.getType()) {
+            case SHIPMENT -> {
+                pendingShipments.remove(key);
+                if (value != null) {
+                    shipments.put(key, (List<Product>) value);
+                }
+            }
+            case TRACK -> {
+                pendingTrack.remove(key);
+                if (value != null) {
+                    track.put(key, (Status) value);
+                }
+            }
+            case PRICING -> {
+                pendingPricing.remove(key);
+                if (value != null) {
+                    pricing.put(key, (Double) value);
+                }
+            }
+            case COMPLETE -> {
+            }
+        }
+    }
+
+    int unresolvedCount() {
+        return pendingShipments.size() + pendingTrack.size() + pendingPricing.size();
+    }
+
+    AggregationResult toResult() {
+        Map<String, List<String>> unresolved = new HashMap<>();
+        addUnresolved(unresolved, SHIPMENTS, pendingShipments);
+        addUnresolved(unresolved, TRACK, pendingTrack);
+        addUnresolved(unresolved, PRICING, pendingPricing);
+
+        return new AggregationResult(shipments, track, pricing, unresolved);
+    }
+
+    private static void addUnresolved(Map<String, List<String>> unresolved, String section, Set<String> pending) {
+        if (!pending.isEmpty()) {
+            unresolved.put(section, List.copyOf(pending));
+        }
+    }
+}
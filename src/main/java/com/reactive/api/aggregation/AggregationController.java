@@ -1,24 +1,114 @@
 package com.reactive.api.aggregation;
 
+import com.reactive.api.client.Deadline;
+import com.reactive.api.config.ConfigProperties;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 @RequiredArgsConstructor
 @RestController
 public class AggregationController {
 
+    private static final String MALFORMED = "malformed";
+
     private final AggregationService aggregationService;
+    private final ConfigProperties configProperties;
+    private final AggregationAdmission admission;
+
+    // only present when the responses are cached
+    private final Optional<AggregationResponseCache> responseCache;
 
     @GetMapping("/aggregation")
-    public Mono<Aggregation> aggregate(@RequestParam Optional<List<String>> shipmentsOrderNumbers,
-                                       @RequestParam Optional<List<String>> trackOrderNumbers,
-                                       @RequestParam Optional<List<String>> pricingCountryCodes) {
-        return aggregationService.aggregate(shipmentsOrderNumbers, trackOrderNumbers, pricingCountryCodes);
+    public Mono<ResponseEntity<?>> aggregate(@RequestParam Optional<List<String>> shipmentsOrderNumbers,
+                                             @RequestParam Optional<List<String>> trackOrderNumbers,
+                                             @RequestParam Optional<List<String>> pricingCountryCodes,
+                                             @RequestHeader(Deadline.HEADER) Optional<Long> requestTimeout) {
+        Duration timeout = timeout(requestTimeout);
+        Deadline deadline = Deadline.after(timeout);
+        AggregationPlan plan = plan(shipmentsOrderNumbers, trackOrderNumbers, pricingCountryCodes);
+        Supplier<Mono<AggregationResult>> aggregate = () -> admission.execute(plan, deadline, () -> aggregationService
+            .aggregate(shipmentsOrderNumbers, trackOrderNumbers, pricingCountryCodes)
+            .contextWrite(deadline::addTo));
+
+        // the ETag lets WebFlux answer the If-None-Match requests with a 304
+        return responseCache
+            .map(cache -> cache.get(plan, timeout.equals(configProperties.getSla()), aggregate)
+                .<ResponseEntity<?>>map(response -> ResponseEntity.ok()
+                    .eTag(response.etag())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(response.body())))
+            .orElseGet(() -> aggregate.get().map(ResponseEntity::ok));
+    }
+
+    @GetMapping(value = "/aggregation/stream", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public Flux<AggregationEvent> aggregateStream(@RequestParam Optional<List<String>> shipmentsOrderNumbers,
+                                                  @RequestParam Optional<List<String>> trackOrderNumbers,
+                                                  @RequestParam Optional<List<String>> pricingCountryCodes,
+                                                  @RequestHeader(Deadline.HEADER) Optional<Long> requestTimeout) {
+        Deadline deadline = Deadline.after(timeout(requestTimeout));
+        AggregationPlan plan = plan(shipmentsOrderNumbers, trackOrderNumbers, pricingCountryCodes);
+
+        return admission.executeStream(plan, deadline, () -> aggregationService
+            .aggregateStream(shipmentsOrderNumbers, trackOrderNumbers, pricingCountryCodes)
+            .contextWrite(deadline::addTo));
+    }
+
+    @ExceptionHandler(AdmissionRejectedException.class)
+    public ResponseEntity<Void> rejected(AdmissionRejectedException e) {
+        return ResponseEntity.status(e.getStatus())
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfter().toSeconds()))
+            .build();
+    }
+
+    @ExceptionHandler(MalformedKeysException.class)
+    public ResponseEntity<Map<String, Map<String, List<String>>>> malformed(MalformedKeysException e) {
+        return ResponseEntity.badRequest()
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(Map.of(MALFORMED, e.getKeys()));
+    }
+
+    // a malformed key fails the whole request: answering it with the others would look like a key with no value
+    private static AggregationPlan plan(Optional<List<String>> shipmentsOrderNumbers,
+                                        Optional<List<String>> trackOrderNumbers,
+                                        Optional<List<String>> pricingCountryCodes) {
+        AggregationPlan plan = new AggregationPlan(shipmentsOrderNumbers, trackOrderNumbers, pricingCountryCodes);
+        if (!plan.getMalformedKeys().isEmpty()) {
+            throw new MalformedKeysException(plan.getMalformedKeys());
+        }
+
+        return plan;
+    }
+
+    /**
+     * The SLA caps the deadline, a caller can only ask for a shorter one.
+     */
+    private Duration timeout(Optional<Long> requestTimeout) {
+        if (requestTimeout.filter(timeout -> timeout <= 0).isPresent()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, Deadline.HEADER + " must be a positive number of milliseconds");
+        }
+
+        Duration sla = configProperties.getSla();
+
+        return requestTimeout
+            .map(Duration::ofMillis)
+            .filter(timeout -> timeout.compareTo(sla) < 0)
+            .orElse(sla);
     }
 }
@@ -0,0 +1,30 @@
+package com.reactive.api.aggregation;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One entry of a streamed aggregation: a shipment, track or pricing result, or the final completion marker.
+ * <p>
+ * The value is the same as in the {@link Aggregation} maps: the list of products, the status or the price.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class AggregationEvent {
+
+    public enum Type {
+        SHIPMENT, TRACK, PRICING, COMPLETE
+    }
+
+    private Type type;
+    private String key;
+    private Object value;
+
+    public static AggregationEvent complete() {
+        return new AggregationEvent(Type.COMPLETE, null, null);
+    }
+}
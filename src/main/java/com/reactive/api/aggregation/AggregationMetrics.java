@@ -0,0 +1,53 @@
+package com.reactive.api.aggregation;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Metrics of the whole aggregations: how long they take, whether they were cut at the deadline, and how many keys they
+ * fan out to.
+ */
+@Component
+public class AggregationMetrics {
+
+    private final Timer complete;
+    private final Timer partial;
+    private final Timer streamed;
+    private final DistributionSummary fanOut;
+
+    public AggregationMetrics(MeterRegistry meterRegistry) {
+        this.complete = timer(meterRegistry, "aggregate", "complete");
+        this.partial = timer(meterRegistry, "aggregate", "partial");
+        this.streamed = timer(meterRegistry, "stream", "complete");
+        this.fanOut = DistributionSummary.builder("aggregation.fanout")
+            .description("Unique keys looked up per aggregation")
+            .baseUnit("keys")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+    }
+
+    void planned(AggregationPlan plan) {
+        fanOut.record(plan.keyCount());
+    }
+
+    void aggregated(long startNanos, AggregationCollector collector) {
+        Timer timer = collector.unresolvedCount() == 0 ? complete : partial;
+        timer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    void streamed(long startNanos) {
+        streamed.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static Timer timer(MeterRegistry meterRegistry, String type, String outcome) {
+        return Timer.builder("aggregation.requests")
+            .tag("type", type)
+            .tag("outcome", outcome)
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+    }
+}
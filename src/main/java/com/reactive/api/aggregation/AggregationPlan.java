@@ -0,0 +1,72 @@
+package com.reactive.api.aggregation;
+
+import lombok.Getter;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.UnaryOperator;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Unique keys to look up for one aggregation request, worked out before any call is made.
+ * <p>
+ * Keys are trimmed, country codes are upper-cased, and each key is looked up once per section however many times it
+ * was requested. Malformed keys are not looked up, since no backend could resolve them: they are listed per section
+ * instead, see {@link #getMalformedKeys()}.
+ */
+@Getter
+class AggregationPlan {
+
+    // the order numbers of the Backend Services API are numeric, and at most 20 digits long
+    private static final Pattern ORDER_NUMBER = Pattern.compile("\\d{1,20}");
+    // ISO 3166-1 alpha-2
+    private static final Pattern COUNTRY_CODE = Pattern.compile("[A-Z]{2}");
+
+    private final List<String> shipmentsOrderNumbers;
+    private final List<String> trackOrderNumbers;
+    private final List<String> pricingCountryCodes;
+
+    /**
+     * The malformed keys per section, named like the sections of {@link AggregationResult}. Empty when all the keys are
+     * well-formed.
+     */
+    private final Map<String, List<String>> malformedKeys = new LinkedHashMap<>();
+
+    AggregationPlan(Optional<List<String>> shipmentsOrderNumbers,
+                    Optional<List<String>> trackOrderNumbers,
+                    Optional<List<String>> pricingCountryCodes) {
+
+        this.shipmentsOrderNumbers = canonicalize(AggregationCollector.SHIPMENTS, shipmentsOrderNumbers,
+            UnaryOperator.identity(), ORDER_NUMBER);
+        this.trackOrderNumbers = canonicalize(AggregationCollector.TRACK, trackOrderNumbers,
+            UnaryOperator.identity(), ORDER_NUMBER);
+        this.pricingCountryCodes = canonicalize(AggregationCollector.PRICING, pricingCountryCodes,
+            code -> code.toUpperCase(Locale.ROOT), COUNTRY_CODE);
+    }
+
+    int keyCount() {
+        return shipmentsOrderNumbers.size() + trackOrderNumbers.size() + pricingCountryCodes.size();
+    }
+
+    // the blank keys, e.g. out of a trailing comma, are no keys at all
+    private List<String> canonicalize(String section, Optional<List<String>> keys, UnaryOperator<String> normalize,
+                                      Pattern format) {
+        Map<Boolean, List<String>> byFormat = keys.orElse(List.of()).stream()
+            .filter(Objects::nonNull)
+            .map(key -> normalize.apply(key.trim()))
+            .filter(key -> !key.isEmpty())
+            .distinct()
+            .collect(Collectors.partitioningBy(key -> format.matcher(key).matches()));
+
+        if (!byFormat.get(false).isEmpty()) {
+            malformedKeys.put(section, byFormat.get(false));
+        }
+
+        return byFormat.get(true);
+    }
+}
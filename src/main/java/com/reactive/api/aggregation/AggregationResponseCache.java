@@ -0,0 +1,128 @@
+package com.reactive.api.aggregation;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.reactive.api.client.RequestCoalescer;
+import com.reactive.api.config.ConfigProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Short-lived cache of the serialized aggregation responses, for the callers polling with the same parameters.
+ * <p>
+ * Requests asking for the same keys, in whatever order or case, share one entry. Each response carries a strong ETag
+ * computed from its content, so a poller that already has it gets a 304 without a body. Partial responses are not
+ * cached. Concurrent requests missing the same entry share one aggregation when they all have the SLA deadline; a
+ * partial result or a rejection only goes to the request that aggregated, the others aggregate on their own.
+ */
+@Component
+@ConditionalOnProperty(name = "aggregation.response-cache.enabled", havingValue = "true")
+class AggregationResponseCache {
+
+    // the local tiers of the backend caches publish the same meters, with the same tag keys
+    static final String TIER = "response";
+
+    private static final ResolvableType RESULT_TYPE = ResolvableType.forClass(AggregationResult.class);
+
+    record CachedResponse(byte[] body, String etag) {
+    }
+
+    private record Aggregated(CachedResponse response, boolean complete) {
+    }
+
+    private final Cache<String, CachedResponse> cache;
+
+    private final RequestCoalescer<String, Aggregated> coalescer = new RequestCoalescer<>();
+
+    private final AggregationResultEncoder encoder;
+
+    AggregationResponseCache(ConfigProperties configProperties, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        ConfigProperties.ResponseCache properties = configProperties.getResponseCache();
+
+        this.encoder = new AggregationResultEncoder(objectMapper.getFactory());
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(properties.getMaxEntries())
+            .expireAfterWrite(properties.getTtl())
+            .recordStats()
+            .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "aggregation-response", Tags.of("tier", TIER));
+    }
+
+    /**
+     * The aggregation is only shared with the other requests when it runs with the SLA deadline, since a shorter
+     * deadline would cut their results short.
+     */
+    Mono<CachedResponse> get(AggregationPlan plan, boolean shared, Supplier<Mono<AggregationResult>> aggregate) {
+        String key = key(plan);
+
+        return Mono.defer(() -> {
+            CachedResponse cached = cache.getIfPresent(key);
+            if (cached != null) {
+                return Mono.just(cached);
+            }
+
+            Mono<CachedResponse> aggregateAlone = Mono.defer(() -> aggregate(key, aggregate).map(Aggregated::response));
+            if (!shared) {
+                return aggregateAlone;
+            }
+
+            AtomicBoolean aggregated = new AtomicBoolean();
+            return coalescer.execute(key, () -> {
+                    aggregated.set(true);
+                    return aggregate(key, aggregate);
+                })
+                .flatMap(result -> aggregated.get() || result.complete() ? Mono.just(result.response()) : aggregateAlone)
+                .onErrorResume(e -> !aggregated.get(), e -> aggregateAlone);
+        });
+    }
+
+    private Mono<Aggregated> aggregate(String key, Supplier<Mono<AggregationResult>> aggregate) {
+        return aggregate.get().map(result -> {
+            CachedResponse response = serialize(result);
+            boolean complete = result.getUnresolved().isEmpty();
+            if (complete) {
+                cache.put(key, response);
+            }
+            return new Aggregated(response, complete);
+        });
+    }
+
+    private CachedResponse serialize(AggregationResult result) {
+        DataBuffer buffer = encoder.encodeValue(result, DefaultDataBufferFactory.sharedInstance, RESULT_TYPE,
+            MediaType.APPLICATION_JSON, Map.of());
+        try {
+            byte[] body = new byte[buffer.readableByteCount()];
+            buffer.read(body);
+            return new CachedResponse(body, "\"" + DigestUtils.md5DigestAsHex(body) + "\"");
+        } finally {
+            DataBufferUtils.release(buffer);
+        }
+    }
+
+    private static String key(AggregationPlan plan) {
+        return sorted(plan.getShipmentsOrderNumbers())
+            + '|' + sorted(plan.getTrackOrderNumbers())
+            + '|' + sorted(plan.getPricingCountryCodes());
+    }
+
+    private static String sorted(List<String> keys) {
+        return String.join(",", keys.stream().sorted().toList());
+    }
+}
@@ -0,0 +1,29 @@
+package com.reactive.api.aggregation;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.reactive.api.shipment.Product;
+import com.reactive.api.track.Status;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The aggregation as the service builds it, with the resolved values held as they are rather than wrapped in
+ * {@code Optional}s. It is written with the same JSON shape as {@link Aggregation}, by {@link AggregationResultEncoder}.
+ */
+@Getter
+@AllArgsConstructor
+public class AggregationResult {
+
+    private final Map<String, List<Product>> shipments;
+    private final Map<String, Status> track;
+    private final Map<String, Double> pricing;
+
+    /**
+     * Keys that could not be resolved before the SLA deadline, per section. Only present when the result is partial.
+     */
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private final Map<String, List<String>> unresolved;
+}
@@ -0,0 +1,153 @@
+package com.reactive.api.aggregation;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.reactive.api.shipment.Product;
+import com.reactive.api.track.Status;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.Encoder;
+import org.springframework.core.codec.EncodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.MediaType;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes an {@link AggregationResult} as JSON straight into a buffer of the server, pooled with Netty.
+ * <p>
+ * The field names of the sections and the enum names are encoded once, and the entries without a value are skipped
+ * while writing, so no object is created per entry.
+ */
+public class AggregationResultEncoder implements Encoder<AggregationResult> {
+
+    private static final List<MimeType> MIME_TYPES = List.of(MediaType.APPLICATION_JSON);
+
+    private static final SerializedString SHIPMENTS = new SerializedString(AggregationCollector.SHIPMENTS);
+    private static final SerializedString TRACK = new SerializedString(AggregationCollector.TRACK);
+    private static final SerializedString PRICING = new SerializedString(AggregationCollector.PRICING);
+    private static final SerializedString UNRESOLVED = new SerializedString("unresolved");
+
+    private static final SerializedString[] PRODUCTS = encodedNames(Product.values());
+    private static final SerializedString[] STATUSES = encodedNames(Status.values());
+
+    // a key and its value take about this much, products lists included
+    private static final int BYTES_PER_ENTRY = 32;
+
+    private final JsonFactory jsonFactory;
+
+    public AggregationResultEncoder(JsonFactory jsonFactory) {
+        this.jsonFactory = jsonFactory;
+    }
+
+    @Override
+    public boolean canEncode(ResolvableType elementType, MimeType mimeType) {
+        return AggregationResult.class.isAssignableFrom(elementType.toClass())
+            && (mimeType == null || MIME_TYPES.stream().anyMatch(supported -> supported.isCompatibleWith(mimeType)));
+    }
+
+    @Override
+    public Flux<DataBuffer> encode(Publisher<? extends AggregationResult> inputStream, DataBufferFactory bufferFactory,
+                                   ResolvableType elementType, MimeType mimeType, Map<String, Object> hints) {
+        return Flux.from(inputStream).map(result -> encodeValue(result, bufferFactory, elementType, mimeType, hints));
+    }
+
+    @Override
+    public DataBuffer encodeValue(AggregationResult result, DataBufferFactory bufferFactory, ResolvableType valueType,
+                                  MimeType mimeType, Map<String, Object> hints) {
+        DataBuffer buffer = bufferFactory.allocateBuffer(estimateSize(result));
+        boolean release = true;
+        try {
+            try (JsonGenerator generator = jsonFactory.createGenerator(buffer.asOutputStream(), JsonEncoding.UTF8)) {
+                write(generator, result);
+            }
+            release = false;
+            return buffer;
+        } catch (IOException e) {
+            throw new EncodingException("Could not write the aggregation", e);
+        } finally {
+            if (release) {
+                DataBufferUtils.release(buffer);
+            }
+        }
+    }
+
+    @Override
+    public List<MimeType> getEncodableMimeTypes() {
+        return MIME_TYPES;
+    }
+
+    private static void write(JsonGenerator generator, AggregationResult result) throws IOException {
+        generator.writeStartObject();
+
+        generator.writeFieldName(SHIPMENTS);
+        generator.writeStartObject();
+        for (Map.Entry<String, List<Product>> shipment : result.getShipments().entrySet()) {
+            if (shipment.getValue() != null) {
+                generator.writeFieldName(shipment.getKey());
+                generator.writeStartArray();
+                for (Product product : shipment.getValue()) {
+                    generator.writeString(PRODUCTS[product.ordinal()]);
+                }
+                generator.writeEndArray();
+            }
+        }
+        generator.writeEndObject();
+
+        generator.writeFieldName(TRACK);
+        generator.writeStartObject();
+        for (Map.Entry<String, Status> track : result.getTrack().entrySet()) {
+            if (track.getValue() != null) {
+                generator.writeFieldName(track.getKey());
+                generator.writeString(STATUSES[track.getValue().ordinal()]);
+            }
+        }
+        generator.writeEndObject();
+
+        generator.writeFieldName(PRICING);
+        generator.writeStartObject();
+        for (Map.Entry<String, Double> pricing : result.getPricing().entrySet()) {
+            if (pricing.getValue() != null) {
+                generator.writeFieldName(pricing.getKey());
+                generator.writeNumber(pricing.getValue());
+            }
+        }
+        generator.writeEndObject();
+
+        if (!result.getUnresolved().isEmpty()) {
+            generator.writeFieldName(UNRESOLVED);
+            generator.writeStartObject();
+            for (Map.Entry<String, List<String>> section : result.getUnresolved().entrySet()) {
+                generator.writeFieldName(section.getKey());
+                generator.writeStartArray();
+                for (String key : section.getValue()) {
+                    generator.writeString(key);
+                }
+                generator.writeEndArray();
+            }
+            generator.writeEndObject();
+        }
+
+        generator.writeEndObject();
+    }
+
+    private static int estimateSize(AggregationResult result) {
+        int entries = result.getShipments().size() + result.getTrack().size() + result.getPricing().size();
+        return 64 + entries * BYTES_PER_ENTRY;
+    }
+
+    private static SerializedString[] encodedNames(Enum<?>[] values) {
+        return Arrays.stream(values)
+            .map(value -> new SerializedString(value.name()))
+            .toArray(SerializedString[]::new);
+    }
+}
@@ -1,13 +1,21 @@
 package com.reactive.api.aggregation;
 
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.util.List;
 import java.util.Optional;
 
 public interface AggregationService {
-    Mono<Aggregation> aggregate(Optional<List<String>> shipmentsOrderNumbers,
-                                Optional<List<String>> trackOrderNumbers,
-                                Optional<List<String>> pricingCountryCodes);
+    Mono<AggregationResult> aggregate(Optional<List<String>> shipmentsOrderNumbers,
+                                      Optional<List<String>> trackOrderNumbers,
+                                      Optional<List<String>> pricingCountryCodes);
+
+    /**
+     * Emits each shipment, track and pricing result as soon as it is available, followed by a completion marker.
+     */
+    Flux<AggregationEvent> aggregateStream(Optional<List<String>> shipmentsOrderNumbers,
+                                           Optional<List<String>> trackOrderNumbers,
+                                           Optional<List<String>> pricingCountryCodes);
 
 }
@@ -1,66 +1,130 @@
 package com.reactive.api.aggregation;
 
+import com.reactive.api.aggregation.AggregationEvent.Type;
+import com.reactive.api.client.Deadline;
 import com.reactive.api.config.ConfigProperties;
+import com.reactive.api.pricing.Pricing;
 import com.reactive.api.pricing.PricingService;
-import com.reactive.api.shipment.Product;
 import com.reactive.api.shipment.ShipmentService;
-import com.reactive.api.track.Status;
 import com.reactive.api.track.TrackService;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.context.ContextView;
 
 import java.time.Duration;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
-import java.util.OptionalDouble;
+import java.util.function.Function;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class DefaultAggregationService implements AggregationService {
 
-    public static final Duration ERROR_MARGIN = Duration.ofMillis(200);
     private final ShipmentService shipmentService;
     private final TrackService trackService;
     private final PricingService pricingService;
     private final ConfigProperties configProperties;
+    private final AggregationMetrics metrics;
+
+    // the deadline cuts run on a timer of their own: on the parallel scheduler, they would wait behind the timeouts of
+    // the backend calls and whatever those trigger, and cut the aggregations past their deadline under load
+    private final Scheduler deadlineTimer = Schedulers.newSingle("aggregation-deadline", true);
+
+    @PreDestroy
+    public void stop() {
+        deadlineTimer.dispose();
+    }
 
     @Override
-    public Mono<Aggregation> aggregate(Optional<List<String>> shipmentsOrderNumbers,
+    public Mono<AggregationResult> aggregate(Optional<List<String>> shipmentsOrderNumbers,
                                        Optional<List<String>> trackOrderNumbers,
                                        Optional<List<String>> pricingCountryCodes) {
 
         log.debug("Processing Aggregation request...");
+        AggregationPlan plan = new AggregationPlan(shipmentsOrderNumbers, trackOrderNumbers, pricingCountryCodes);
+        metrics.planned(plan);
 
-        Mono<Map<String, Optional<List<Product>>>> shipments = shipmentsOrderNumbers
-            .map(shipmentService::getShipment)
-            .orElse(Mono.just(Map.of()));
+        // whatever is resolved by the deadline makes it into the aggregation, the rest is reported as unresolved
+        return Mono.deferContextual(context -> {
+                long start = System.nanoTime();
+                return resolve(plan)
+                    .take(timeLeft(context), deadlineTimer)
+                    .collect(() -> new AggregationCollector(plan), AggregationCollector::add)
+                    .doOnNext(collector -> metrics.aggregated(start, collector));
+            })
+            .doOnNext(this::logUnresolved)
+            .map(AggregationCollector::toResult)
+            .doOnNext(aggregation -> log.debug("Aggregation finished"));
+    }
 
-        Mono<Map<String, Optional<Status>>> track = trackOrderNumbers
-            .map(trackService::getTrack)
-            .orElse(Mono.just(Map.of()));
+    @Override
+    public Flux<AggregationEvent> aggregateStream(Optional<List<String>> shipmentsOrderNumbers,
+                                                  Optional<List<String>> trackOrderNumbers,
+                                                  Optional<List<String>> pricingCountryCodes) {
 
-        Mono<Map<String, OptionalDouble>> pricing = pricingCountryCodes
-            .map(pricingService::getPricing)
-            .orElse(Mono.just(Map.of()));
+        log.debug("Processing streamed Aggregation request...");
+        AggregationPlan plan = new AggregationPlan(shipmentsOrderNumbers, trackOrderNumbers, pricingCountryCodes);
+        metrics.planned(plan);
 
-        return Mono.zip(shipments, track, pricing)
-            .map(tuple -> aggregate(tuple.getT1(), tuple.getT2(), tuple.getT3()))
-            .timeout(configProperties.getSla().minus(ERROR_MARGIN), Mono.just(new Aggregation()))
-            .doOnNext(aggregation -> log.debug("Aggregation finished"));
+        return Flux.deferContextual(context -> {
+                long start = System.nanoTime();
+                return resolve(plan)
+                    .filter(event -> event.getValue() != null)
+                    .take(timeLeft(context), deadlineTimer)
+                    .doOnComplete(() -> metrics.streamed(start));
+            })
+            .concatWith(Mono.just(AggregationEvent.complete()))
+            .doOnComplete(() -> log.debug("Streamed Aggregation finished"));
+    }
+
+    /**
+     * Resolves all the keys of the plan in parallel. Keys the backend has nothing for are emitted with an empty value.
+     * Keys cut by the deadline are not emitted: the collector keeps them as unresolved.
+     */
+    private Flux<AggregationEvent> resolve(AggregationPlan plan) {
+        Flux<AggregationEvent> shipments = streamIfAny(plan.getShipmentsOrderNumbers(), shipmentService::streamShipment)
+            .map(s -> new AggregationEvent(Type.SHIPMENT, s.getOrderNumber(), s.getProducts().orElse(null)));
+
+        Flux<AggregationEvent> track = streamIfAny(plan.getTrackOrderNumbers(), trackService::streamTrack)
+            .map(t -> new AggregationEvent(Type.TRACK, t.getOrderNumber(), t.getStatus().orElse(null)));
+
+        Flux<AggregationEvent> pricing = streamIfAny(plan.getPricingCountryCodes(), pricingService::streamPricing)
+            .map(p -> new AggregationEvent(Type.PRICING, p.getCountryCode(), priceOf(p)));
+
+        return Flux.merge(shipments, track, pricing);
     }
 
-    private Aggregation aggregate(Map<String, Optional<List<Product>>> shipments,
-                                  Map<String, Optional<Status>> track,
-                                  Map<String, OptionalDouble> pricing) {
+    /**
+     * Time left until the request deadline, or the SLA when the request has none, minus the safety margin kept to
+     * write the response. The backend calls are bounded by the same margin, so none runs past the cut.
+     */
+    private Duration timeLeft(ContextView context) {
+        Duration timeLeft = Deadline.from(context)
+            .map(Deadline::remaining)
+            .orElse(configProperties.getSla())
+            .minus(configProperties.getDeadlineSafetyMargin());
+
+        return timeLeft.isNegative() ? Duration.ZERO : timeLeft;
+    }
+
+    private static <T> Flux<T> streamIfAny(List<String> keys, Function<List<String>, Flux<T>> stream) {
+        return keys.isEmpty() ? Flux.empty() : stream.apply(keys);
+    }
+
+    private static Double priceOf(Pricing pricing) {
+        return pricing.getPrice().isPresent() ? pricing.getPrice().getAsDouble() : null;
+    }
 
-        return Aggregation.builder()
-            .shipments(shipments)
-            .track(track)
-            .pricing(pricing)
-            .build();
+    private void logUnresolved(AggregationCollector collector) {
+        if (collector.unresolvedCount() > 0) {
+            log.debug("Aggregation cut at the SLA deadline, unresolved keys: " + collector.unresolvedCount());
+        }
     }
 }
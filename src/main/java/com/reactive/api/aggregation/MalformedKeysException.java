@@ -0,0 +1,21 @@
+package com.reactive.api.aggregation;
+
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Raised when some of the requested keys are malformed, before any call is made. Answered with a 400 listing them per
+ * section.
+ */
+@Getter
+class MalformedKeysException extends RuntimeException {
+
+    private final Map<String, List<String>> keys;
+
+    MalformedKeysException(Map<String, List<String>> keys) {
+        super("Malformed keys: " + keys, null, false, false);
+        this.keys = keys;
+    }
+}
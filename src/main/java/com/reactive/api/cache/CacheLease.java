@@ -0,0 +1,163 @@
+package com.reactive.api.cache;
+
+import com.reactive.api.client.Deadline;
+import com.reactive.api.client.RequestCoalescer;
+import com.reactive.api.config.ConfigProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.RedisStringCommands.SetOption;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.ReactiveRedisOperations;
+import org.springframework.data.redis.core.types.Expiration;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Lease on the keys missing from the cache, shared by all the nodes through Redis, so that a key missing everywhere
+ * at once (a mass expiry, a flushed Redis) is fetched from the backend by one node rather than by all of them.
+ * <p>
+ * The node that takes the lease ({@code SET NX PX}) fetches and caches the value. The others poll Redis until the value
+ * shows up, and fetch it themselves when it doesn't within the wait timeout. The callers of the same node share one
+ * attempt, which runs without the deadline of any of them: each caller stops waiting for it at its own deadline, and
+ * its key is then left unresolved.
+ * <p>
+ * Once the value is cached, the lease expires on its own. When the fetch ends without caching a value (it failed, was
+ * cancelled, or answered with a value that is not cached), the holder releases the lease, only if it still holds it,
+ * and a polling node takes it over right away rather than at the end of its wait. The nodes poll rather than subscribe
+ * to keyspace notifications: those are off unless Redis is configured for them, and a notification missed over
+ * Pub/Sub would leave the nodes waiting anyway.
+ */
+@Slf4j
+public class CacheLease<V> {
+
+    private static final String KEY_PREFIX = "lease:";
+
+    // deletes the lease only when it is still the one of the node, since it may have expired and been taken since
+    public static final String RELEASE_SCRIPT =
+        "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) else return 0 end";
+
+    private final ReactiveRedisOperations<String, V> operations;
+
+    private final ConfigProperties.Lease properties;
+
+    private final Duration safetyMargin;
+
+    private final byte[] owner = UUID.randomUUID().toString().getBytes(StandardCharsets.UTF_8);
+
+    private final RequestCoalescer<String, V> coalescer = new RequestCoalescer<>();
+
+    private final Counter acquired;
+    private final Counter awaited;
+    private final Counter waitedInVain;
+    private final Counter released;
+
+    public CacheLease(String name, ReactiveRedisOperations<String, V> operations, ConfigProperties properties,
+                      MeterRegistry registry) {
+        this.operations = operations;
+        this.properties = properties.getCacheLease();
+        this.safetyMargin = properties.getDeadlineSafetyMargin();
+        this.acquired = counter(name, "acquired", registry);
+        this.awaited = counter(name, "awaited", registry);
+        this.waitedInVain = counter(name, "timeout", registry);
+        this.released = counter(name, "released", registry);
+    }
+
+    /**
+     * Runs the fetch, which is expected to cache the value it answers with unless {@code cached} tells otherwise, unless
+     * another node holds the lease of the key and caches the value in time.
+     */
+    public Mono<V> execute(String key, Supplier<Mono<V>> fetch, Predicate<V> cached) {
+        if (!properties.isEnabled()) {
+            return Mono.defer(fetch);
+        }
+
+        Mono<V> attempt = coalescer.execute(key, () -> tryAcquire(key)
+            .flatMap(leased -> leased ? fetchLeased(key, fetch, cached) : awaitValue(key, fetch, cached))
+            .contextWrite(Deadline::removeFrom));
+
+        return Mono.deferContextual(context -> Deadline.from(context)
+            .map(deadline -> deadline.remaining().minus(safetyMargin))
+            .map(wait -> wait.isNegative() || wait.isZero() ? Mono.<V>empty() : attempt.timeout(wait, Mono.empty()))
+            .orElse(attempt));
+    }
+
+    // without Redis there is nothing to coordinate with, so the node fetches the value itself
+    private Mono<Boolean> tryAcquire(String key) {
+        return operations.execute(connection -> connection.stringCommands()
+                .set(leaseKey(key), ByteBuffer.wrap(owner), Expiration.from(properties.getTtl()), SetOption.ifAbsent()))
+            .next()
+            .defaultIfEmpty(false)
+            .onErrorResume(e -> {
+                log.debug("Could not take the lease of " + key, e);
+                return Mono.just(true);
+            });
+    }
+
+    private Mono<V> fetchLeased(String key, Supplier<Mono<V>> fetch, Predicate<V> cached) {
+        acquired.increment();
+        AtomicBoolean valueCached = new AtomicBoolean();
+
+        return Mono.defer(fetch)
+            .doOnNext(value -> valueCached.set(cached.test(value)))
+            .doFinally(signal -> {
+                if (!valueCached.get()) {
+                    release(key);
+                }
+            });
+    }
+
+    // while the value is missing, the lease is taken over as soon as it is released or expires
+    private Mono<V> awaitValue(String key, Supplier<Mono<V>> fetch, Predicate<V> cached) {
+        return Flux.interval(properties.getPollInterval())
+            .onBackpressureDrop()
+            .concatMap(i -> operations.opsForValue().get(key)
+                .onErrorResume(e -> Mono.empty())
+                .map(value -> {
+                    awaited.increment();
+                    return Mono.just(value);
+                })
+                .switchIfEmpty(Mono.defer(() -> tryAcquire(key))
+                    .filter(Boolean::booleanValue)
+                    .map(leased -> fetchLeased(key, fetch, cached))))
+            .take(properties.getWaitTimeout())
+            .next()
+            .flatMap(Function.identity())
+            .switchIfEmpty(Mono.defer(() -> {
+                waitedInVain.increment();
+                return fetch.get();
+            }));
+    }
+
+    private void release(String key) {
+        operations.execute(connection -> connection.scriptingCommands()
+                .<Long>eval(ByteBuffer.wrap(RELEASE_SCRIPT.getBytes(StandardCharsets.UTF_8)), ReturnType.INTEGER, 1,
+                    leaseKey(key), ByteBuffer.wrap(owner)))
+            .next()
+            .subscribe(deleted -> {
+                if (deleted > 0) {
+                    released.increment();
+                }
+            }, e -> log.debug("Could not release the lease of " + key, e));
+    }
+
+    private static ByteBuffer leaseKey(String key) {
+        return ByteBuffer.wrap((KEY_PREFIX + key).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Counter counter(String name, String result, MeterRegistry registry) {
+        return Counter.builder("cache.leases")
+            .tag("cache", name)
+            .tag("result", result)
+            .register(registry);
+    }
+}
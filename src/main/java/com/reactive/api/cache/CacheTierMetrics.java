@@ -0,0 +1,37 @@
+package com.reactive.api.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Hit and miss counters of a remote cache tier, published under the same {@code cache.gets} meter that Micrometer uses
+ * for the local tier so that hit ratios can be compared per tier.
+ */
+public class CacheTierMetrics {
+
+    public static final String REDIS_TIER = "redis";
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public CacheTierMetrics(String name, String tier, MeterRegistry registry) {
+        this.hits = counter(name, tier, "hit", registry);
+        this.misses = counter(name, tier, "miss", registry);
+    }
+
+    public void hit() {
+        hits.increment();
+    }
+
+    public void miss() {
+        misses.increment();
+    }
+
+    private static Counter counter(String name, String tier, String result, MeterRegistry registry) {
+        return Counter.builder("cache.gets")
+            .tag("cache", name)
+            .tag("tier", tier)
+            .tag("result", result)
+            .register(registry);
+    }
+}
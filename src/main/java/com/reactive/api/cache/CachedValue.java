@@ -0,0 +1,21 @@
+package com.reactive.api.cache;
+
+/**
+ * A value kept by the cache tiers, along with what they need to know about it: when it was cached, and why when it is
+ * a fallback rather than an answer of the backend.
+ */
+public interface CachedValue<V> {
+
+    Long getCachedAt();
+
+    V withCachedAt(Long cachedAt);
+
+    Fallback getFallback();
+
+    V withFallback(Fallback fallback);
+
+    /**
+     * Whether the value holds no answer, e.g. a fallback value.
+     */
+    boolean isEmpty();
+}
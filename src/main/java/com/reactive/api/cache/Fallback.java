@@ -0,0 +1,18 @@
+package com.reactive.api.cache;
+
+/**
+ * Why a fallback value was cached in place of an answer of the backend. Each kind is cached for its own time, see
+ * {@code aggregation.cache.negative}. Constants must only ever be appended, the binary codecs store their ordinal.
+ */
+public enum Fallback {
+
+    /**
+     * The backend has nothing for the key.
+     */
+    EMPTY,
+
+    /**
+     * The backend did not answer in time, or answered with an error.
+     */
+    TIMEOUT
+}
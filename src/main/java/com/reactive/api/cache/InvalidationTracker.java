@@ -0,0 +1,207 @@
+package com.reactive.api.cache;
+
+import io.lettuce.core.RedisChannelHandler;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisConnectionStateListener;
+import io.lettuce.core.RedisException;
+import io.lettuce.core.SetArgs;
+import io.lettuce.core.TrackingArgs;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.push.PushMessage;
+import io.lettuce.core.codec.ByteArrayCodec;
+import io.lettuce.core.codec.RedisCodec;
+import io.lettuce.core.codec.StringCodec;
+import io.lettuce.core.output.GenericMapOutput;
+import io.lettuce.core.protocol.CommandArgs;
+import io.lettuce.core.protocol.CommandType;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.net.SocketAddress;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Evicts the values of the local cache tiers as soon as they change in Redis.
+ * <p>
+ * A dedicated RESP3 connection, opened with the Lettuce client of the Redis connection factory, turns on
+ * {@code CLIENT TRACKING} in broadcasting mode for the key prefixes of the caches. Redis then pushes an invalidation to
+ * it whenever one of those keys is written, deleted or expires, whichever node or tool made the change. The tiers are
+ * only tracked while the connection is up: on a disconnection their entries are dropped, and the tracking is turned on
+ * again on reconnection, since Redis forgets it with the connection.
+ * <p>
+ * The tracking is turned on with {@code NOLOOP}, and the values cached by this instance are written to Redis over the
+ * same connection, see {@link #set}: Redis then pushes no invalidation for them, so they don't evict the local values
+ * they were just cached along with.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "aggregation.cache.tracking.enabled", havingValue = "true")
+public class InvalidationTracker implements SmartInitializingSingleton, RedisConnectionStateListener {
+
+    private static final String INVALIDATE = "invalidate";
+
+    private static final Long RESP3 = 3L;
+
+    private static final RedisCodec<String, byte[]> CODEC = RedisCodec.of(StringCodec.UTF8, ByteArrayCodec.INSTANCE);
+
+    private final ReactiveRedisConnectionFactory connectionFactory;
+
+    private final Map<String, LocalCache<?>> caches = new ConcurrentHashMap<>();
+
+    private RedisClient client;
+
+    private volatile StatefulRedisConnection<String, byte[]> connection;
+
+    private volatile boolean tracked;
+
+    @Autowired
+    public InvalidationTracker(ReactiveRedisConnectionFactory connectionFactory) {
+        this.connectionFactory = connectionFactory;
+    }
+
+    /**
+     * Evicts the keys starting with the prefix from the cache when they change. The caches are registered before the
+     * tracking starts.
+     */
+    public void track(String prefix, LocalCache<?> cache) {
+        caches.put(prefix, cache);
+    }
+
+    /**
+     * Whether Redis pushes the invalidations of the tracked keys, in which case {@link #set} doesn't invalidate the
+     * local values of this instance.
+     */
+    public boolean isTracked() {
+        return tracked;
+    }
+
+    /**
+     * Writes a serialized value over the tracking connection, which gets no invalidation for it.
+     */
+    public Mono<String> set(String key, byte[] value, Duration expiration) {
+        return connection.reactive().set(key, value, SetArgs.Builder.px(expiration.toMillis()));
+    }
+
+    // all the caches are registered by then
+    @Override
+    public void afterSingletonsInstantiated() {
+        start();
+    }
+
+    public void start() {
+        if (caches.isEmpty()) {
+            return;
+        }
+
+        if (!(connectionFactory instanceof LettuceConnectionFactory lettuce)
+            || !(lettuce.getRequiredNativeClient() instanceof RedisClient redisClient)) {
+            log.warn("Keys can only be tracked with a standalone Lettuce connection, the local cache is not tracked");
+            return;
+        }
+
+        try {
+            connection = redisClient.connect(CODEC);
+        } catch (RedisException e) {
+            log.warn("Could not connect to Redis to track the cached keys, the local cache is not tracked", e);
+            return;
+        }
+
+        client = redisClient;
+        connection.addListener(this::onPush);
+        client.addListener(this);
+        enableTracking();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (connection == null) {
+            return;
+        }
+
+        client.removeListener(this);
+        connection.close();
+        setTracked(false);
+    }
+
+    @Override
+    public void onRedisConnected(RedisChannelHandler<?, ?> handler, SocketAddress address) {
+        if (handler == connection) {
+            enableTracking();
+        }
+    }
+
+    @Override
+    public void onRedisDisconnected(RedisChannelHandler<?, ?> handler) {
+        if (handler == connection) {
+            setTracked(false);
+        }
+    }
+
+    // the invalidations are only pushed over RESP3, which the handshake of Lettuce may or may not have settled on
+    private void enableTracking() {
+        TrackingArgs tracking = TrackingArgs.Builder.enabled()
+            .bcast()
+            .noloop()
+            .prefixes(caches.keySet().toArray(String[]::new));
+
+        connection.async()
+            .dispatch(CommandType.HELLO, new GenericMapOutput<>(CODEC), new CommandArgs<>(CODEC).add(3))
+            .thenCompose(hello -> {
+                if (!RESP3.equals(hello.get("proto"))) {
+                    throw new CompletionException(new IllegalStateException("Redis doesn't speak RESP3"));
+                }
+
+                return connection.async().clientTracking(tracking);
+            })
+            .whenComplete((reply, e) -> {
+                if (e != null) {
+                    log.warn("Could not track the cached keys in Redis, the local cache is not tracked", e);
+                    return;
+                }
+
+                log.info("Tracking the cached keys in Redis with the prefixes " + caches.keySet());
+                setTracked(true);
+            });
+    }
+
+    private void onPush(PushMessage message) {
+        if (!INVALIDATE.equals(message.getType())) {
+            return;
+        }
+
+        // no keys means the database was flushed
+        Object keys = message.getContent(StringCodec.UTF8::decodeKey).get(1);
+        if (keys == null) {
+            caches.values().forEach(LocalCache::invalidateAll);
+            return;
+        }
+
+        for (Object key : (List<?>) keys) {
+            invalidate((String) key);
+        }
+    }
+
+    private void invalidate(String key) {
+        caches.forEach((prefix, cache) -> {
+            if (key.startsWith(prefix)) {
+                cache.invalidate(key);
+            }
+        });
+    }
+
+    private void setTracked(boolean tracked) {
+        this.tracked = tracked;
+        caches.values().forEach(cache -> cache.setTracked(tracked));
+    }
+}
@@ -0,0 +1,134 @@
+package com.reactive.api.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.reactive.api.config.ConfigProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.time.Duration;
+
+/**
+ * In-process (L1) cache tier kept in front of Redis.
+ * <p>
+ * Backed by Caffeine, which bounds the number of entries and uses frequency-based admission, so hot keys stay on the
+ * heap while one-off keys are the first to be evicted.
+ * <p>
+ * While Redis tracks the keys for this tier, see {@link InvalidationTracker}, the entries are only bounded by the
+ * expiration they are put with, since a change in Redis evicts them anyway. A value read from Redis is only cached
+ * when its key was neither invalidated nor cached anew while it was read.
+ */
+public class LocalCache<V> {
+
+    public static final String TIER = "local";
+
+    // a read taking longer than that is not cached
+    private static final Duration MAX_READ_TIME = Duration.ofMinutes(1);
+
+    private final Cache<String, V> cache;
+
+    private final Duration expiration;
+
+    // one token per key being read from Redis, shared by the concurrent reads of the key
+    private final Cache<String, Object> reads;
+
+    private volatile boolean tracked;
+
+    public LocalCache(String name, ConfigProperties.Local local, ConfigProperties.LocalSpec spec, MeterRegistry registry) {
+        this.expiration = spec.getExpiration();
+        this.cache = local.isEnabled() ? build(spec.getMaxEntries(), expiration) : null;
+        this.reads = Caffeine.newBuilder()
+            .maximumSize(spec.getMaxEntries())
+            .expireAfterWrite(MAX_READ_TIME)
+            .build();
+
+        if (cache != null) {
+            CaffeineCacheMetrics.monitor(registry, cache, name, Tags.of("tier", TIER));
+        }
+    }
+
+    public V get(String key) {
+        return cache == null ? null : cache.getIfPresent(key);
+    }
+
+    /**
+     * Caches a value that must not outlive the given expiration, e.g. a negative entry. The configured expiration of
+     * the tier still applies when it is shorter.
+     */
+    public void put(String key, V value, Duration maxExpiration) {
+        if (cache != null) {
+            reads.invalidate(key);
+            Duration entryExpiration = tracked || maxExpiration.compareTo(expiration) < 0 ? maxExpiration : expiration;
+            cache.policy().expireVariably().orElseThrow().put(key, value, entryExpiration);
+        }
+    }
+
+    /**
+     * Caches a value read from Redis, unless its key was invalidated or cached anew since the read started: the value
+     * may then predate the change, and it is read again next time instead.
+     */
+    public void put(String key, V value, Duration maxExpiration, Object read) {
+        if (read != null && reads.asMap().remove(key, read)) {
+            put(key, value, maxExpiration);
+        }
+    }
+
+    /**
+     * Marks the start of a read of the key from Redis, to be passed along with the value read.
+     */
+    public Object startRead(String key) {
+        return cache == null ? null : reads.get(key, k -> new Object());
+    }
+
+    public void invalidate(String key) {
+        reads.invalidate(key);
+        if (cache != null) {
+            cache.invalidate(key);
+        }
+    }
+
+    public void invalidateAll() {
+        reads.invalidateAll();
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+    }
+
+    /**
+     * Untracking the tier drops its entries, since the invalidations of those that outlive the tier expiration may be
+     * missed from then on.
+     */
+    public void setTracked(boolean tracked) {
+        this.tracked = tracked;
+        if (!tracked) {
+            invalidateAll();
+        }
+    }
+
+    private static <V> Cache<String, V> build(long maxEntries, Duration expiration) {
+        long expirationNanos = expiration.toNanos();
+
+        return Caffeine.newBuilder()
+            .maximumSize(maxEntries)
+            .expireAfter(new Expiry<String, V>() {
+                @Override
+                public long expireAfterCreate(String key, V value, long currentTime) {
+                    return expirationNanos;
+                }
+
+                @Override
+                public long expireAfterUpdate(String key, V value, long currentTime, long currentDuration) {
+                    return expirationNanos;
+                }
+
+                @Override
+                public long expireAfterRead(String key, V value, long currentTime, long currentDuration) {
+                    return currentDuration;
+                }
+            })
+            .recordStats()
+            .build();
+    }
+}
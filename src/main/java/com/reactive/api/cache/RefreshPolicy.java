@@ -0,0 +1,77 @@
+package com.reactive.api.cache;
+
+import com.reactive.api.config.ConfigProperties;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Decides whether a cached value can be served as is, must be refreshed in the background, or is stale.
+ */
+@Slf4j
+public class RefreshPolicy {
+
+    public enum Freshness {
+        FRESH, REFRESH_AHEAD, STALE
+    }
+
+    private final Duration expiration;
+
+    private final Duration staleWindow;
+
+    private final long refreshAfterMillis;
+
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+    public RefreshPolicy(Duration expiration, ConfigProperties.Refresh refresh) {
+        this.expiration = expiration;
+        this.staleWindow = refresh.getStaleWindow();
+
+        double aheadFraction = refresh.getAheadFraction();
+        boolean refreshAhead = aheadFraction > 0 && aheadFraction < 1;
+        this.refreshAfterMillis = refreshAhead ? (long) (expiration.toMillis() * aheadFraction) : Long.MAX_VALUE;
+    }
+
+    /**
+     * Values written before the cache kept track of timestamps are considered fresh.
+     */
+    public Freshness freshness(Long cachedAt) {
+        if (cachedAt == null) {
+            return Freshness.FRESH;
+        }
+
+        long age = System.currentTimeMillis() - cachedAt;
+        if (age > expiration.toMillis()) {
+            return Freshness.STALE;
+        }
+
+        return age > refreshAfterMillis ? Freshness.REFRESH_AHEAD : Freshness.FRESH;
+    }
+
+    /**
+     * Redis keeps the values for the stale window on top of the regular expiration.
+     */
+    public Duration redisExpiration() {
+        return expiration.plus(staleWindow);
+    }
+
+    /**
+     * Triggers the refresh of the key unless one is already running, and tells whether it did.
+     */
+    public boolean refreshInBackground(String key, Supplier<Mono<?>> refresh) {
+        if (!refreshing.add(key)) {
+            return false;
+        }
+
+        Mono.defer(refresh)
+            .doFinally(signal -> refreshing.remove(key))
+            .subscribe(
+                value -> log.debug("Refreshed cached value: " + key),
+                e -> log.debug("Could not refresh cached value: " + key, e));
+        return true;
+    }
+}
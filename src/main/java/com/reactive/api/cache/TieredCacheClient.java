@@ -0,0 +1,252 @@
+package com.reactive.api.cache;
+
+import com.reactive.api.client.BackendErrors;
+import com.reactive.api.client.BackendMetrics;
+import com.reactive.api.config.ConfigProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.ReactiveRedisOperations;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Cache of the values of one backend: the local tier, then Redis, then the backend.
+ * <p>
+ * The Redis lookups of the keys missing from the local tier are batched into MGETs. A value past the refresh-ahead
+ * fraction of its expiration is served while it is refreshed in the background, and a stale one is only served when
+ * the backend cannot answer within the stale timeout. The fallback values are cached as negative entries, for the time of their
+ * {@link Fallback} kind. With several nodes, only the one holding the lease of a missing key calls the backend, and the
+ * values are written to Redis behind the response.
+ */
+@Slf4j
+public class TieredCacheClient<V extends CachedValue<V>> {
+
+    private final String name;
+
+    private final String keyPrefix;
+
+    private final ReactiveRedisOperations<String, V> operations;
+
+    private final Function<String, Mono<V>> fetch;
+
+    private final Function<String, V> fallback;
+
+    private final ConfigProperties properties;
+
+    private final LocalCache<V> localCache;
+
+    private final CacheTierMetrics redisMetrics;
+
+    private final RefreshPolicy refreshPolicy;
+
+    private final BackendMetrics backendMetrics;
+
+    private final CacheLease<V> lease;
+
+    private final WriteBehindQueue<V> writeBehind;
+
+    /**
+     * The fetch calls the backend without falling back, see e.g. {@code DefaultTrackClient.fetchTrack}: it completes
+     * empty when the backend has nothing for the key, and fails when it cannot answer.
+     */
+    public TieredCacheClient(String name,
+                             String keyPrefix,
+                             ConfigProperties.LocalSpec localSpec,
+                             ReactiveRedisOperations<String, V> operations,
+                             Function<String, Mono<V>> fetch,
+                             Function<String, V> fallback,
+                             ConfigProperties properties,
+                             MeterRegistry meterRegistry,
+                             Optional<InvalidationTracker> invalidationTracker) {
+
+        this.name = name;
+        this.keyPrefix = keyPrefix;
+        this.operations = operations;
+        this.fetch = fetch;
+        this.fallback = fallback;
+        this.properties = properties;
+        this.localCache = new LocalCache<>(name, properties.getLocalCache(), localSpec, meterRegistry);
+        this.redisMetrics = new CacheTierMetrics(name, CacheTierMetrics.REDIS_TIER, meterRegistry);
+        this.refreshPolicy = new RefreshPolicy(properties.getExpiration(), properties.getCacheRefresh());
+        this.backendMetrics = new BackendMetrics(name, meterRegistry);
+        this.lease = new CacheLease<>(name, operations, properties, meterRegistry);
+        this.writeBehind = new WriteBehindQueue<>(name, operations, properties, meterRegistry, invalidationTracker);
+
+        // only present when Redis pushes the invalidations of the keys
+        invalidationTracker.ifPresent(tracker -> tracker.track(keyPrefix, localCache));
+    }
+
+    public void flushWrites() {
+        writeBehind.close(Duration.ofSeconds(1));
+    }
+
+    public Mono<V> get(String id) {
+        String key = keyPrefix + id;
+        return Mono.justOrEmpty(localCache.get(key))
+            .switchIfEmpty(Mono.defer(() -> getRedis(key)))
+            .flatMap(cached -> serveCached(id, key, cached))
+            .switchIfEmpty(Mono.defer(() -> getAndCache(id, key)));
+    }
+
+    public Flux<V> get(List<String> ids) {
+        List<Mono<V>> localHits = new ArrayList<>();
+        List<String> localMisses = new ArrayList<>();
+
+        for (String id : ids) {
+            String key = keyPrefix + id;
+            V cached = localCache.get(key);
+            if (cached != null) {
+                localHits.add(serveCached(id, key, cached));
+            } else {
+                localMisses.add(id);
+            }
+        }
+
+        // a stale local hit waits for the backend, so the Redis lookups of the misses must not wait for the hits
+        return Flux.merge(Flux.merge(localHits), Flux.fromIterable(localMisses)
+            .buffer(properties.getCacheBatchSize())
+            .flatMap(this::multiGetRedis));
+    }
+
+    private Flux<V> multiGetRedis(List<String> ids) {
+        List<String> keys = ids.stream().map(keyPrefix::concat).toList();
+        List<Object> reads = keys.stream().map(localCache::startRead).toList();
+
+        return operations.opsForValue().multiGet(keys)
+            .onErrorResume(throwable -> Mono.just(Collections.nCopies(keys.size(), null)))
+            .flatMapMany(values -> Flux.range(0, keys.size())
+                .flatMap(i -> resolveRedis(ids.get(i), keys.get(i), values.get(i), reads.get(i))));
+    }
+
+    private Mono<V> resolveRedis(String id, String key, V cached, Object read) {
+        if (cached == null) {
+            redisMetrics.miss();
+            return getAndCache(id, key);
+        }
+
+        log.debug("Returning cached " + name + ": " + cached);
+        putLocal(key, cached, read);
+        redisMetrics.hit();
+        return serveCached(id, key, cached);
+    }
+
+    private Mono<V> getRedis(String key) {
+        Object read = localCache.startRead(key);
+
+        return operations.opsForValue().get(key)
+            .doOnNext(value -> log.debug("Returning cached " + name + ": " + value))
+            .doOnNext(value -> putLocal(key, value, read))
+            .doOnNext(value -> redisMetrics.hit())
+            .onErrorResume(throwable -> Mono.empty())
+            .switchIfEmpty(Mono.fromRunnable(redisMetrics::miss));
+    }
+
+    private Mono<V> serveCached(String id, String key, V cached) {
+        return switch (refreshPolicy.freshness(cached.getCachedAt())) {
+            case FRESH -> Mono.just(cached);
+            case REFRESH_AHEAD -> {
+                refreshPolicy.refreshInBackground(key, () -> refresh(id, key));
+                yield Mono.just(cached);
+            }
+
+            // the stale value is only served when the backend cannot answer within the stale timeout, the refresh
+            // then goes on in the background for the next callers
+            case STALE -> {
+                Mono<V> refresh = refresh(id, key).cache();
+
+                // a refresh started by an earlier caller has already had its chance
+                if (!refreshPolicy.refreshInBackground(key, () -> refresh)) {
+                    yield Mono.just(cached);
+                }
+
+                yield refresh.timeout(properties.getCacheRefresh().getStaleTimeout(), Mono.just(cached))
+                    .onErrorResume(e -> BackendErrors.isRecoverable(e) || BackendErrors.isShed(e), e -> Mono.just(cached));
+            }
+        };
+    }
+
+    // the backend having nothing for the key anymore is cached as such, like on a miss
+    private Mono<V> refresh(String id, String key) {
+        return fetch.apply(id)
+            .flatMap(value -> cache(key, value))
+            .switchIfEmpty(Mono.defer(() -> fallBack(key, fallback.apply(id).withFallback(Fallback.EMPTY))));
+    }
+
+    // with several nodes, only the one holding the lease of the key calls the backend
+    private Mono<V> getAndCache(String id, String key) {
+        return lease.execute(key, () -> fetchAndCache(id, key), TieredCacheClient::isCached);
+    }
+
+    private Mono<V> fetchAndCache(String id, String key) {
+        V fallbackValue = fallback.apply(id);
+
+        return fetch.apply(id)
+            .flatMap(value -> cache(key, value))
+
+            // the backend has nothing for this key
+            .switchIfEmpty(Mono.defer(() -> fallBack(key, fallbackValue.withFallback(Fallback.EMPTY))))
+
+            // cut by the request deadline, the key is reported as unresolved rather than as empty
+            .onErrorResume(BackendErrors::isDeadlineExceeded, e -> Mono.empty())
+
+            // a call rejected on this side says nothing about the backend, so the fallback is not cached
+            .onErrorResume(BackendErrors::isRejected, e -> fallBack(key, fallbackValue))
+
+            // handles timeouts, service unavailable error and other errors
+            .onErrorResume(BackendErrors::isRecoverable, e -> fallBack(key, fallbackValue.withFallback(Fallback.TIMEOUT)));
+    }
+
+    // a fallback value without a kind answers a rejected call, it is not cached
+    private Mono<V> fallBack(String key, V fallbackValue) {
+        backendMetrics.fallback();
+        return fallbackValue.getFallback() == null
+            ? Mono.just(fallbackValue)
+            : cacheThenReturn(key, fallbackValue, negativeExpiration(fallbackValue.getFallback()));
+    }
+
+    private Mono<V> cache(String key, V value) {
+        return cacheThenReturn(key, value.withCachedAt(System.currentTimeMillis()), refreshPolicy.redisExpiration());
+    }
+
+    private Mono<V> cacheThenReturn(String key, V value, Duration expiration) {
+        if (expiration.isZero() || expiration.isNegative()) {
+            return Mono.just(value);
+        }
+
+        localCache.put(key, value, expiration);
+        return writeBehind.write(key, value, expiration)
+            .thenReturn(value)
+            .doOnNext(v -> log.debug("Added to cache - " + name + ": " + v));
+    }
+
+    // an empty value without a kind was written before the kinds were stored, so it gets the shortest negative expiration
+    private void putLocal(String key, V value, Object read) {
+        Duration expiration;
+        if (value.getFallback() != null) {
+            expiration = negativeExpiration(value.getFallback());
+        } else if (value.isEmpty()) {
+            expiration = negativeExpiration(Fallback.TIMEOUT);
+        } else {
+            expiration = refreshPolicy.redisExpiration();
+        }
+
+        localCache.put(key, value, expiration, read);
+    }
+
+    // the values cached are stamped, or are fallbacks of a kind
+    private static boolean isCached(CachedValue<?> value) {
+        return value.getCachedAt() != null || value.getFallback() != null;
+    }
+
+    private Duration negativeExpiration(Fallback fallback) {
+        ConfigProperties.Negative negativeCache = properties.getNegativeCache();
+        return fallback == Fallback.EMPTY ? negativeCache.getEmptyExpiration() : negativeCache.getTimeoutExpiration();
+    }
+}
@@ -0,0 +1,117 @@
+package com.reactive.api.cache;
+
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Base class of the compact binary Redis codecs.
+ * <p>
+ * Binary payloads start with a format version byte. Anything else is handed to the JSON serializer, so values written
+ * by the JSON codec stay readable while a deployment migrates from one format to the other. Whether values are
+ * written in the binary or in the JSON format is decided by {@code aggregation.cache.codec}.
+ */
+public abstract class VersionedRedisSerializer<T> implements RedisSerializer<T> {
+
+    // JSON documents start with a printable character, so no valid JSON payload starts with one of these bytes
+    private static final byte MIN_VERSION = 1;
+    private static final byte MAX_VERSION = 31;
+
+    private static final int MAX_STRING_LENGTH = 0xFFFF;
+
+    private static final long NO_TIMESTAMP = 0L;
+
+    private static final byte NO_FALLBACK = -1;
+
+    private static final Fallback[] FALLBACKS = Fallback.values();
+
+    private final RedisSerializer<T> jsonSerializer;
+
+    private final boolean writeBinary;
+
+    protected VersionedRedisSerializer(RedisSerializer<T> jsonSerializer, boolean writeBinary) {
+        this.jsonSerializer = jsonSerializer;
+        this.writeBinary = writeBinary;
+    }
+
+    @Override
+    public byte[] serialize(T value) throws SerializationException {
+        if (value == null) {
+            return null;
+        }
+
+        return writeBinary ? encode(value) : jsonSerializer.serialize(value);
+    }
+
+    @Override
+    public T deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+
+        byte version = bytes[0];
+        if (version < MIN_VERSION || version > MAX_VERSION) {
+            return jsonSerializer.deserialize(bytes);
+        }
+
+        try {
+            return decode(version, ByteBuffer.wrap(bytes, 1, bytes.length - 1));
+        } catch (RuntimeException e) {
+            throw new SerializationException("Could not decode binary cache value (version " + version + ")", e);
+        }
+    }
+
+    /**
+     * Encodes the value, including the leading version byte.
+     */
+    protected abstract byte[] encode(T value);
+
+    /**
+     * Decodes a payload of the given version. The buffer is positioned right after the version byte.
+     */
+    protected abstract T decode(byte version, ByteBuffer buffer);
+
+    protected static int sizeOf(String value) {
+        return Short.BYTES + value.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    protected static void putString(ByteBuffer buffer, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_STRING_LENGTH) {
+            throw new SerializationException("String too long for the binary cache codec: " + bytes.length + " bytes");
+        }
+
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    protected static String getString(ByteBuffer buffer) {
+        byte[] bytes = new byte[Short.toUnsignedInt(buffer.getShort())];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    protected static void putTimestamp(ByteBuffer buffer, Long timestamp) {
+        buffer.putLong(timestamp == null ? NO_TIMESTAMP : timestamp);
+    }
+
+    protected static Long getTimestamp(ByteBuffer buffer) {
+        long timestamp = buffer.getLong();
+        return timestamp == NO_TIMESTAMP ? null : timestamp;
+    }
+
+    protected static void putFallback(ByteBuffer buffer, Fallback fallback) {
+        buffer.put(fallback == null ? NO_FALLBACK : (byte) fallback.ordinal());
+    }
+
+    protected static Fallback getFallback(ByteBuffer buffer) {
+        byte ordinal = buffer.get();
+        return ordinal == NO_FALLBACK ? null : FALLBACKS[ordinal];
+    }
+
+    protected static SerializationException unsupportedVersion(byte version) {
+        return new SerializationException("Unsupported binary cache value version: " + version);
+    }
+}
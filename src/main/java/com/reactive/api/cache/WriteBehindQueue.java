@@ -0,0 +1,174 @@
+package com.reactive.api.cache;
+
+import com.reactive.api.config.ConfigProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.ReactiveRedisOperations;
+import org.springframework.data.redis.util.ByteUtils;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Write-behind queue of the values cached in Redis, so that a cache miss doesn't wait for the Redis write.
+ * <p>
+ * The writes are sent in batches of pipelined {@code SET PX} commands, once a batch is full or when the flush interval
+ * elapses. One batch is in flight at a time, so the writes of a key reach Redis in the order they were made. When
+ * Redis falls behind and the queue is full, new writes are dropped rather than waited for.
+ * <p>
+ * While Redis tracks the keys, the writes go over the tracking connection, so that they don't invalidate the local
+ * values of this instance.
+ */
+@Slf4j
+public class WriteBehindQueue<V> {
+
+    private record Write<V>(String key, V value, Duration expiration) {
+    }
+
+    private final ReactiveRedisOperations<String, V> operations;
+
+    private final Optional<InvalidationTracker> invalidationTracker;
+
+    private final ConfigProperties.WriteBehind properties;
+
+    private final BlockingQueue<Write<V>> queue;
+
+    private final AtomicBoolean flushing = new AtomicBoolean();
+
+    private final Disposable flushes;
+
+    private final Counter written;
+    private final Counter dropped;
+    private final Counter failed;
+
+    public WriteBehindQueue(String name, ReactiveRedisOperations<String, V> operations, ConfigProperties properties,
+                            MeterRegistry registry) {
+        this(name, operations, properties, registry, Optional.empty());
+    }
+
+    public WriteBehindQueue(String name, ReactiveRedisOperations<String, V> operations, ConfigProperties properties,
+                            MeterRegistry registry, Optional<InvalidationTracker> invalidationTracker) {
+        this.operations = operations;
+        this.invalidationTracker = invalidationTracker;
+        this.properties = properties.getCacheWriteBehind();
+        this.queue = new ArrayBlockingQueue<>(Math.max(this.properties.getMaxPending(), 1));
+        this.written = counter(name, "written", registry);
+        this.dropped = counter(name, "dropped", registry);
+        this.failed = counter(name, "failed", registry);
+
+        Gauge.builder("cache.writes.pending", queue, BlockingQueue::size)
+            .tag("cache", name)
+            .register(registry);
+
+        this.flushes = this.properties.isEnabled()
+            ? Flux.interval(this.properties.getFlushInterval()).onBackpressureDrop().subscribe(tick -> flush())
+            : null;
+    }
+
+    /**
+     * Completes once the value is queued, or once it is written when the write-behind is disabled. Never fails.
+     */
+    public Mono<Void> write(String key, V value, Duration expiration) {
+        if (!properties.isEnabled()) {
+            return set(new Write<>(key, value, expiration))
+                .onErrorResume(e -> Mono.empty())
+                .then();
+        }
+
+        return Mono.fromRunnable(() -> {
+            if (!queue.offer(new Write<>(key, value, expiration))) {
+                dropped.increment();
+                return;
+            }
+
+            if (queue.size() >= properties.getBatchSize()) {
+                flush();
+            }
+        });
+    }
+
+    /**
+     * Stops the periodic flushes and writes what is still queued.
+     */
+    public void close(Duration timeout) {
+        if (flushes == null) {
+            return;
+        }
+
+        flushes.dispose();
+        while (!queue.isEmpty()) {
+            try {
+                send(drain()).block(timeout);
+            } catch (RuntimeException e) {
+                log.debug("Could not write the queued values to Redis on shutdown", e);
+                return;
+            }
+        }
+    }
+
+    private void flush() {
+        if (queue.isEmpty() || !flushing.compareAndSet(false, true)) {
+            return;
+        }
+
+        send(drain())
+            .doFinally(signal -> {
+                flushing.set(false);
+
+                // a full batch may have been queued while this one was in flight
+                if (queue.size() >= properties.getBatchSize()) {
+                    flush();
+                }
+            })
+            .subscribe();
+    }
+
+    private List<Write<V>> drain() {
+        List<Write<V>> batch = new ArrayList<>(properties.getBatchSize());
+        queue.drainTo(batch, properties.getBatchSize());
+        return batch;
+    }
+
+    // all the commands of the batch are subscribed at once, so they go out on the shared connection without waiting
+    // for each other's replies
+    private Mono<Void> send(List<Write<V>> batch) {
+        return Flux.fromIterable(batch)
+            .flatMap(write -> set(write)
+                .doOnSuccess(ok -> written.increment())
+                .onErrorResume(e -> {
+                    log.debug("Could not write " + write.key() + " to Redis", e);
+                    failed.increment();
+                    return Mono.empty();
+                }), Math.max(batch.size(), 1))
+            .then();
+    }
+
+    private Mono<?> set(Write<V> write) {
+        Optional<InvalidationTracker> tracker = invalidationTracker.filter(InvalidationTracker::isTracked);
+        if (tracker.isEmpty()) {
+            return operations.opsForValue().set(write.key(), write.value(), write.expiration());
+        }
+
+        byte[] value = ByteUtils.getBytes(operations.getSerializationContext()
+            .getValueSerializationPair()
+            .write(write.value()));
+        return tracker.get().set(write.key(), value, write.expiration());
+    }
+
+    private static Counter counter(String name, String result, MeterRegistry registry) {
+        return Counter.builder("cache.writes")
+            .tag("cache", name)
+            .tag("result", result)
+            .register(registry);
+    }
+}
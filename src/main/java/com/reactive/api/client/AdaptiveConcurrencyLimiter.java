@@ -0,0 +1,223 @@
+package com.reactive.api.client;
+
+import com.reactive.api.config.ConfigProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Limits the number of concurrent calls to one backend, across all the requests.
+ * <p>
+ * The limit adapts to the round trip times observed, the way the gradient algorithm does: it grows while the latency
+ * stays close to its long-term average and shrinks when the latency rises, which means the backend started queueing.
+ * Timeouts and errors shrink it multiplicatively. Calls above the limit wait in a bounded queue, and give up once the
+ * deadline of the call has passed.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final double RTT_TOLERANCE = 1.5;
+
+    private static final int LONG_RTT_WINDOW = 600;
+
+    private static final double SMOOTHING = 0.2;
+
+    private enum Outcome {
+        SUCCESS, DROPPED, IGNORED
+    }
+
+    private final ConfigProperties.Concurrency properties;
+
+    private final Deque<Waiter> queue = new ArrayDeque<>();
+
+    private volatile double limit;
+
+    private volatile int inFlight;
+
+    private double longRttNanos;
+
+    public AdaptiveConcurrencyLimiter(String backend, ConfigProperties configProperties, MeterRegistry meterRegistry) {
+        this.properties = configProperties.getConcurrency();
+        this.limit = properties.getInitialLimit();
+
+        Gauge.builder("backend.concurrency.limit", this, limiter -> limiter.limit)
+            .tag("backend", backend)
+            .register(meterRegistry);
+        Gauge.builder("backend.concurrency.in.flight", this, limiter -> limiter.inFlight)
+            .tag("backend", backend)
+            .register(meterRegistry);
+        Gauge.builder("backend.concurrency.queued", this, AdaptiveConcurrencyLimiter::queued)
+            .tag("backend", backend)
+            .register(meterRegistry);
+    }
+
+    /**
+     * The deadline of a shared call may be pushed back while it waits in the queue, see {@link RequestCoalescer}.
+     */
+    public <T> Mono<T> execute(Deadline deadline, Supplier<Mono<T>> call) {
+        if (!properties.isEnabled()) {
+            return Mono.defer(call);
+        }
+
+        return Mono.usingWhen(Mono.defer(() -> acquire(deadline)),
+            permit -> Mono.defer(call),
+            permit -> permit.release(Outcome.SUCCESS),
+            (permit, e) -> permit.release(BackendErrors.isRecoverable(e) ? Outcome.DROPPED : Outcome.IGNORED),
+            permit -> permit.release(Outcome.IGNORED));
+    }
+
+    private Mono<Permit> acquire(Deadline deadline) {
+        Permit permit = tryAcquire();
+        if (permit != null) {
+            return Mono.just(permit);
+        }
+
+        Duration remaining = deadline.remaining();
+        if (remaining.isNegative() || remaining.isZero()) {
+            return Mono.error(new DeadlineExceededException());
+        }
+
+        return Mono.<Permit>create(sink -> {
+                Waiter waiter = new Waiter(sink);
+                sink.onCancel(() -> cancel(waiter));
+                enqueue(waiter);
+            })
+            .timeout(deadline.expiration(), Mono.error(DeadlineExceededException::new));
+    }
+
+    private synchronized Permit tryAcquire() {
+        if (!queue.isEmpty() || inFlight >= (int) limit) {
+            return null;
+        }
+
+        inFlight++;
+        return new Permit();
+    }
+
+    private void enqueue(Waiter waiter) {
+        boolean rejected;
+        List<Waiter> granted;
+        synchronized (this) {
+            if (waiter.cancelled) {
+                return;
+            }
+
+            rejected = queue.size() >= properties.getMaxQueueSize();
+            if (!rejected) {
+                queue.add(waiter);
+            }
+            granted = grant();
+        }
+
+        if (rejected) {
+            waiter.sink.error(new CallRejectedException("Backend call queue is full"));
+        }
+        granted.forEach(Waiter::notifyGranted);
+    }
+
+    private void cancel(Waiter waiter) {
+        Permit permit;
+        synchronized (this) {
+            waiter.cancelled = true;
+            permit = queue.remove(waiter) ? null : waiter.permit;
+        }
+
+        // granted but cancelled before the call could start
+        if (permit != null) {
+            permit.release(Outcome.IGNORED).subscribe();
+        }
+    }
+
+    private void release(Permit permit, Outcome outcome) {
+        List<Waiter> granted;
+        synchronized (this) {
+            adjustLimit(outcome, System.nanoTime() - permit.startNanos);
+            inFlight--;
+            granted = grant();
+        }
+
+        granted.forEach(Waiter::notifyGranted);
+    }
+
+    // must hold the lock
+    private List<Waiter> grant() {
+        List<Waiter> granted = new ArrayList<>();
+        while (!queue.isEmpty() && inFlight < (int) limit) {
+            Waiter waiter = queue.poll();
+            waiter.permit = new Permit();
+            inFlight++;
+            granted.add(waiter);
+        }
+
+        return granted;
+    }
+
+    // must hold the lock
+    private void adjustLimit(Outcome outcome, long rttNanos) {
+        if (outcome == Outcome.IGNORED) {
+            return;
+        }
+
+        if (outcome == Outcome.DROPPED) {
+            limit = Math.max(properties.getMinLimit(), limit * properties.getBackoffRatio());
+            return;
+        }
+
+        longRttNanos = longRttNanos == 0 ? rttNanos : longRttNanos + (rttNanos - longRttNanos) / LONG_RTT_WINDOW;
+
+        // far below the limit, the latency says nothing about how much more the backend could take
+        if (inFlight < limit / 2) {
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, RTT_TOLERANCE * longRttNanos / Math.max(rttNanos, 1)));
+        double newLimit = limit * gradient + Math.sqrt(limit);
+        double smoothed = limit * (1 - SMOOTHING) + newLimit * SMOOTHING;
+
+        limit = Math.max(properties.getMinLimit(), Math.min(properties.getMaxLimit(), smoothed));
+    }
+
+    private synchronized int queued() {
+        return queue.size();
+    }
+
+    private class Permit {
+
+        private final long startNanos = System.nanoTime();
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Mono<Void> release(Outcome outcome) {
+            return Mono.fromRunnable(() -> {
+                if (released.compareAndSet(false, true)) {
+                    AdaptiveConcurrencyLimiter.this.release(this, outcome);
+                }
+            });
+        }
+    }
+
+    private static class Waiter {
+
+        private final MonoSink<Permit> sink;
+
+        private Permit permit;
+
+        private boolean cancelled;
+
+        private Waiter(MonoSink<Permit> sink) {
+            this.sink = sink;
+        }
+
+        private void notifyGranted() {
+            sink.success(permit);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.reactive.api.client;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.springframework.web.reactive.function.client.WebClientException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Classification of the errors raised by the calls to the Backend Services API.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class BackendErrors {
+
+    /**
+     * The API has nothing for the requested key.
+     */
+    public static boolean isNotFound(Throwable e) {
+        return e instanceof WebClientResponseException.NotFound;
+    }
+
+    /**
+     * The call was cut by the request deadline rather than by the backend timeout.
+     */
+    public static boolean isDeadlineExceeded(Throwable e) {
+        return e instanceof DeadlineExceededException;
+    }
+
+    /**
+     * The call was not sent to protect the backend.
+     */
+    public static boolean isRejected(Throwable e) {
+        return e instanceof CallRejectedException;
+    }
+
+    /**
+     * The call was cut or rejected on this side, so its fallback value must not be cached.
+     */
+    public static boolean isShed(Throwable e) {
+        return isDeadlineExceeded(e) || isRejected(e);
+    }
+
+    /**
+     * The call timed out, the API is unavailable or answered with an error. These are answered with a fallback value.
+     * A call cut by the request deadline is not: its key is left unresolved.
+     */
+    public static boolean isRecoverable(Throwable e) {
+        return !isDeadlineExceeded(e) && (e instanceof TimeoutException || e instanceof WebClientException || isRejected(e));
+    }
+}
@@ -0,0 +1,75 @@
+package com.reactive.api.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Metrics of the calls to one backend: a timer per outcome of the calls, and a counter of the fallback values served
+ * in place of an answer.
+ */
+public class BackendMetrics {
+
+    public static final String CALLS = "backend.calls";
+
+    public static final String FALLBACKS = "backend.fallbacks";
+
+    private static final String SUCCESS = "success";
+    private static final String EMPTY = "empty";
+    private static final String TIMEOUT = "timeout";
+    private static final String DEADLINE = "deadline";
+    private static final String REJECTED = "rejected";
+    private static final String ERROR = "error";
+
+    private final Map<String, Timer> calls;
+
+    private final Counter fallbacks;
+
+    public BackendMetrics(String backend, MeterRegistry meterRegistry) {
+        this.calls = Stream.of(SUCCESS, EMPTY, TIMEOUT, DEADLINE, REJECTED, ERROR)
+            .collect(Collectors.toMap(Function.identity(), outcome -> Timer.builder(CALLS)
+                .tag("backend", backend)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry)));
+        this.fallbacks = Counter.builder(FALLBACKS)
+            .tag("backend", backend)
+            .register(meterRegistry);
+    }
+
+    public <T> Mono<T> timed(Mono<T> call) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return call
+                .doOnSuccess(value -> record(value == null ? EMPTY : SUCCESS, start))
+                .doOnError(e -> record(outcomeOf(e), start));
+        });
+    }
+
+    public void fallback() {
+        fallbacks.increment();
+    }
+
+    private void record(String outcome, long start) {
+        calls.get(outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private static String outcomeOf(Throwable e) {
+        if (BackendErrors.isRejected(e)) {
+            return REJECTED;
+        }
+        if (BackendErrors.isDeadlineExceeded(e)) {
+            return DEADLINE;
+        }
+
+        return e instanceof TimeoutException ? TIMEOUT : ERROR;
+    }
+}
@@ -0,0 +1,12 @@
+package com.reactive.api.client;
+
+/**
+ * Raised when a backend call is not sent at all to protect the backend. Like {@link DeadlineExceededException}, it
+ * says nothing about the answer the backend would have given.
+ */
+public class CallRejectedException extends RuntimeException {
+
+    public CallRejectedException(String message) {
+        super(message, null, false, false);
+    }
+}
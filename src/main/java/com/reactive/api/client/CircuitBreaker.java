@@ -0,0 +1,171 @@
+package com.reactive.api.client;
+
+import com.reactive.api.config.ConfigProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Circuit breaker in front of one backend.
+ * <p>
+ * The outcomes of the last calls are kept in a sliding window. When too many of them failed or timed out, the circuit
+ * opens and the calls are rejected right away, so they are answered with a fallback instead of waiting for the
+ * timeout. Once the circuit has been open long enough, a few probe calls are let through: the circuit closes if they
+ * all succeed and opens again otherwise.
+ */
+@Slf4j
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final String backend;
+
+    private final ConfigProperties.Breaker properties;
+
+    private final boolean[] failedCalls;
+
+    private int next;
+
+    private int recorded;
+
+    private int failures;
+
+    private volatile State state = State.CLOSED;
+
+    private long openedAtNanos;
+
+    private int probesInFlight;
+
+    private int probesSucceeded;
+
+    public CircuitBreaker(String backend, ConfigProperties.Breaker properties, MeterRegistry meterRegistry) {
+        this.backend = backend;
+        this.properties = properties;
+        this.failedCalls = new boolean[properties.getWindowSize()];
+
+        Gauge.builder("backend.circuit.state", this, breaker -> breaker.state.ordinal())
+            .tag("backend", backend)
+            .register(meterRegistry);
+    }
+
+    public <T> Mono<T> execute(Supplier<Mono<T>> call) {
+        if (!properties.isEnabled()) {
+            return Mono.defer(call);
+        }
+
+        return Mono.defer(() -> {
+            Boolean probe = tryAcquire();
+            if (probe == null) {
+                return Mono.error(new CallRejectedException("Circuit breaker open for the " + backend + " API"));
+            }
+
+            AtomicBoolean done = new AtomicBoolean();
+            return Mono.defer(call)
+                .doOnSuccess(value -> onResult(done, probe, false))
+
+                // calls cut or rejected on this side say nothing about the backend
+                .doOnError(e -> onResult(done, probe, BackendErrors.isShed(e) ? null : BackendErrors.isRecoverable(e)))
+                .doOnCancel(() -> onResult(done, probe, null));
+        });
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * Whether the call is a half-open probe, or null when the call is rejected.
+     */
+    private synchronized Boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAtNanos < properties.getOpenDuration().toNanos()) {
+                return null;
+            }
+            transitionTo(State.HALF_OPEN);
+        }
+
+        if (state == State.CLOSED) {
+            return false;
+        }
+
+        if (probesInFlight + probesSucceeded >= properties.getHalfOpenCalls()) {
+            return null;
+        }
+
+        probesInFlight++;
+        return true;
+    }
+
+    /**
+     * A null failure means the outcome is ignored.
+     */
+    private synchronized void onResult(AtomicBoolean done, boolean probe, Boolean failed) {
+        if (!done.compareAndSet(false, true)) {
+            return;
+        }
+
+        if (probe) {
+            onProbeResult(failed);
+        } else if (failed != null && state == State.CLOSED) {
+            record(failed);
+        }
+    }
+
+    // must hold the lock
+    private void onProbeResult(Boolean failed) {
+        if (state != State.HALF_OPEN) {
+            return;
+        }
+
+        probesInFlight = Math.max(probesInFlight - 1, 0);
+        if (failed == null) {
+            return;
+        }
+
+        if (failed) {
+            transitionTo(State.OPEN);
+        } else if (++probesSucceeded >= properties.getHalfOpenCalls()) {
+            transitionTo(State.CLOSED);
+        }
+    }
+
+    // must hold the lock
+    private void record(boolean failed) {
+        if (recorded == failedCalls.length) {
+            failures -= failedCalls[next] ? 1 : 0;
+        } else {
+            recorded++;
+        }
+
+        failedCalls[next] = failed;
+        failures += failed ? 1 : 0;
+        next = (next + 1) % failedCalls.length;
+
+        if (recorded >= properties.getMinimumCalls() && failures >= properties.getFailureRateThreshold() * recorded) {
+            transitionTo(State.OPEN);
+        }
+    }
+
+    // must hold the lock
+    private void transitionTo(State newState) {
+        log.info("Circuit breaker of the " + backend + " API: " + state + " -> " + newState);
+
+        state = newState;
+        probesInFlight = 0;
+        probesSucceeded = 0;
+
+        if (newState == State.OPEN) {
+            openedAtNanos = System.nanoTime();
+        } else if (newState == State.CLOSED) {
+            next = 0;
+            recorded = 0;
+            failures = 0;
+        }
+    }
+}
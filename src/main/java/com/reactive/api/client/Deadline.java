@@ -0,0 +1,109 @@
+package com.reactive.api.client;
+
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Point in time by which an aggregation request must be answered.
+ * <p>
+ * The deadline is set once per request by the controller and carried in the Reactor {@link Context}, so the calls to
+ * the backend only use what is left of the request budget instead of a fixed timeout.
+ * <p>
+ * The deadline of a request never changes. The deadline of a backend call shared by several requests is pushed back
+ * as requests with more time left join it, see {@link RequestCoalescer}.
+ */
+public final class Deadline {
+
+    /**
+     * Optional request header carrying the time budget of the caller, in milliseconds.
+     */
+    public static final String HEADER = "X-Request-Timeout";
+
+    private static final Object CONTEXT_KEY = Deadline.class;
+
+    private volatile long deadlineNanos;
+
+    private Deadline(long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    public static Deadline after(Duration budget) {
+        return new Deadline(System.nanoTime() + budget.toNanos());
+    }
+
+    public static Optional<Deadline> from(ContextView context) {
+        return context.getOrEmpty(CONTEXT_KEY);
+    }
+
+    public Context addTo(Context context) {
+        return context.put(CONTEXT_KEY, this);
+    }
+
+    /**
+     * Drops the deadline from the context of a call shared by several requests, which must not run under the deadline
+     * of only one of them.
+     */
+    public static Context removeFrom(Context context) {
+        return context.delete(CONTEXT_KEY);
+    }
+
+    public Duration remaining() {
+        return Duration.ofNanos(deadlineNanos - System.nanoTime());
+    }
+
+    /**
+     * Completes once the deadline has passed, however far it was pushed back meanwhile.
+     */
+    public Mono<Long> expiration() {
+        return Mono.defer(() -> {
+            Duration remaining = remaining();
+            return remaining.isNegative() || remaining.isZero()
+                ? Mono.just(0L)
+                : Mono.delay(remaining).then(expiration());
+        });
+    }
+
+    // the deadline of a shared call starts as the one of the caller that starts it
+    Deadline copy() {
+        return new Deadline(deadlineNanos);
+    }
+
+    // only ever called on the deadline of a shared call
+    synchronized void extendTo(Deadline other) {
+        if (other.deadlineNanos - deadlineNanos > 0) {
+            deadlineNanos = other.deadlineNanos;
+        }
+    }
+
+    /**
+     * Runs the call with its budget: the configured timeout, or what is left of the request deadline minus the safety
+     * margin when that is shorter. The call gets the point in time its budget runs out at, and is not even started
+     * when the deadline cannot be met anymore.
+     * <p>
+     * The call may be shared with other callers, so only this caller's wait is cut at its budget: the call itself is
+     * cancelled once none of its callers waits for it anymore. A cut says nothing about the backend, so it fails with a
+     * {@link DeadlineExceededException}.
+     */
+    public static <T> Mono<T> within(Duration timeout, Duration safetyMargin, Function<Deadline, Mono<T>> call) {
+        return Mono.deferContextual(context -> {
+            Duration budget = from(context)
+                .map(deadline -> deadline.remaining().minus(safetyMargin))
+                .filter(remaining -> remaining.compareTo(timeout) < 0)
+                .orElse(timeout);
+
+            if (budget.isNegative() || budget.isZero()) {
+                return Mono.error(new DeadlineExceededException());
+            }
+
+            Mono<T> result = call.apply(after(budget));
+            return budget.compareTo(timeout) < 0
+                ? result.timeout(budget, Mono.error(DeadlineExceededException::new))
+                : result;
+        });
+    }
+}
@@ -0,0 +1,14 @@
+package com.reactive.api.client;
+
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Raised when a backend call is cut, or not even started, because the request deadline is reached. Unlike a regular
+ * timeout, it says nothing about the health of the backend.
+ */
+public class DeadlineExceededException extends TimeoutException {
+
+    public DeadlineExceededException() {
+        super("Request deadline exceeded");
+    }
+}
@@ -0,0 +1,44 @@
+package com.reactive.api.client;
+
+import com.reactive.api.config.ConfigProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caps the extra load sent by hedged requests, across all the backends.
+ * <p>
+ * Every backend call earns a fraction of a hedge and every hedge spends a whole one, so hedges never exceed the
+ * configured share of the traffic. A few unspent hedges are kept to absorb bursts of slow calls.
+ */
+@Component
+public class HedgeBudget {
+
+    private static final long HEDGE = 1_000;
+
+    private static final long MAX_SAVED_HEDGES = 10;
+
+    private final long earnedPerCall;
+
+    private final AtomicLong balance = new AtomicLong();
+
+    public HedgeBudget(ConfigProperties properties) {
+        this.earnedPerCall = Math.round(properties.getHedging().getBudget() * HEDGE);
+    }
+
+    public void onCall() {
+        balance.accumulateAndGet(earnedPerCall, (current, earned) -> Math.min(current + earned, MAX_SAVED_HEDGES * HEDGE));
+    }
+
+    public boolean tryAcquire() {
+        long current;
+        do {
+            current = balance.get();
+            if (current < HEDGE) {
+                return false;
+            }
+        } while (!balance.compareAndSet(current, current - HEDGE));
+
+        return true;
+    }
+}
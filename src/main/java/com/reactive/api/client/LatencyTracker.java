@@ -0,0 +1,54 @@
+package com.reactive.api.client;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Percentile of the latencies recently observed for one backend.
+ * <p>
+ * Keeps a sliding window of the last latencies and recomputes the percentile every few samples, so reading it is as
+ * cheap as reading a field.
+ */
+public class LatencyTracker {
+
+    private static final int WINDOW = 1_000;
+
+    private static final int RECOMPUTE_EVERY = 100;
+
+    private final double percentile;
+
+    private final long[] samples = new long[WINDOW];
+
+    private long recorded;
+
+    private volatile Duration current;
+
+    public LatencyTracker(double percentile) {
+        this.percentile = percentile;
+    }
+
+    public synchronized void record(Duration latency) {
+        samples[(int) (recorded % WINDOW)] = latency.toNanos();
+        recorded++;
+
+        if (recorded % RECOMPUTE_EVERY == 0) {
+            current = compute();
+        }
+    }
+
+    /**
+     * Empty until enough latencies were recorded for the percentile to mean something.
+     */
+    public Optional<Duration> percentile() {
+        return Optional.ofNullable(current);
+    }
+
+    private Duration compute() {
+        long[] sorted = Arrays.copyOf(samples, (int) Math.min(recorded, WINDOW));
+        Arrays.sort(sorted);
+
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return Duration.ofNanos(sorted[Math.max(index, 0)]);
+    }
+}
@@ -0,0 +1,136 @@
+package com.reactive.api.client;
+
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight guard for backend lookups.
+ * <p>
+ * Concurrent callers asking for the same key share one in-flight call, and a caller joining it late still gets its
+ * result. The call is cancelled as soon as its last caller stops waiting for it, since nobody would use its result.
+ * The entry is released as soon as the call terminates, so nothing is cached beyond the lifetime of the call itself.
+ */
+public class RequestCoalescer<K, V> {
+
+    private final Map<K, Flight> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * The call runs under the context of the caller that starts it.
+     */
+    public Mono<V> execute(K key, Supplier<Mono<V>> call) {
+        return execute(key, null, (deadline, context) -> Mono.defer(call).contextWrite(context));
+    }
+
+    /**
+     * The call runs with the latest deadline of its callers, which is pushed back as callers with a later one join,
+     * rather than under the deadline of the caller that starts it.
+     */
+    public Mono<V> execute(K key, Deadline deadline, Function<Deadline, Mono<V>> call) {
+        return execute(key, deadline, (shared, context) -> Mono.defer(() -> call.apply(shared))
+            .contextWrite(Deadline.removeFrom(context)));
+    }
+
+    public int inFlight() {
+        return inFlight.size();
+    }
+
+    private Mono<V> execute(K key, Deadline deadline, CallStarter<V> call) {
+        return Mono.deferContextual(context -> {
+            while (true) {
+                Flight started = new Flight(key, deadline == null ? null : deadline.copy());
+                Flight flight = inFlight.putIfAbsent(key, started);
+                if (flight == null) {
+                    started.join(deadline);
+                    started.start(call, context);
+                    return started.await();
+                }
+
+                if (flight.join(deadline)) {
+                    return flight.await();
+                }
+
+                // left by all its callers in the meantime, it is being cancelled
+                inFlight.remove(key, flight);
+            }
+        });
+    }
+
+    private interface CallStarter<V> {
+        Mono<V> start(Deadline deadline, Context context);
+    }
+
+    private final class Flight {
+
+        private final K key;
+
+        private final Deadline deadline;
+
+        private final Sinks.One<V> result = Sinks.one();
+
+        private final Disposable.Swap subscription = Disposables.swap();
+
+        private int callers;
+
+        private boolean done;
+
+        private Flight(K key, Deadline deadline) {
+            this.key = key;
+            this.deadline = deadline;
+        }
+
+        private synchronized boolean join(Deadline callerDeadline) {
+            if (done) {
+                return false;
+            }
+
+            callers++;
+            if (deadline != null && callerDeadline != null) {
+                deadline.extendTo(callerDeadline);
+            }
+            return true;
+        }
+
+        private void start(CallStarter<V> call, ContextView context) {
+            subscription.update(call.start(deadline, Context.of(context)).subscribe(
+                value -> finish(() -> result.tryEmitValue(value)),
+                e -> finish(() -> result.tryEmitError(e)),
+                () -> finish(result::tryEmitEmpty)));
+        }
+
+        // the callers that terminate with the call don't leave it, only those that cancel
+        private Mono<V> await() {
+            return result.asMono().doOnCancel(this::leave);
+        }
+
+        private void leave() {
+            synchronized (this) {
+                if (done || --callers > 0) {
+                    return;
+                }
+                done = true;
+            }
+
+            inFlight.remove(key, this);
+            subscription.dispose();
+        }
+
+        // released before the callers get the result, so that those asking again afterwards start a new call
+        private void finish(Runnable emit) {
+            synchronized (this) {
+                done = true;
+            }
+
+            inFlight.remove(key, this);
+            emit.run();
+        }
+    }
+}
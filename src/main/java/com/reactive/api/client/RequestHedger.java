@@ -0,0 +1,63 @@
+package com.reactive.api.client;
+
+import com.reactive.api.config.ConfigProperties;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Hedged requests to one backend.
+ * <p>
+ * When a call has not answered after the configured percentile of the recent latencies, a second identical call is
+ * sent if the {@link HedgeBudget} allows it. Whichever answers first wins and the other one is cancelled.
+ */
+public class RequestHedger {
+
+    private final ConfigProperties.Hedging hedging;
+
+    private final HedgeBudget budget;
+
+    private final LatencyTracker latencies;
+
+    public RequestHedger(ConfigProperties.Hedging hedging, HedgeBudget budget) {
+        this.hedging = hedging;
+        this.budget = budget;
+        this.latencies = new LatencyTracker(hedging.getPercentile());
+    }
+
+    /**
+     * Hedging is skipped when it could not happen before the timeout of the call anyway.
+     */
+    public <T> Mono<T> execute(Duration timeout, Supplier<Mono<T>> call) {
+        if (!hedging.isEnabled()) {
+            return Mono.defer(call);
+        }
+
+        return Mono.defer(() -> {
+            budget.onCall();
+            Mono<T> primary = timed(call);
+
+            return latencies.percentile()
+                .map(percentile -> percentile.compareTo(hedging.getMinDelay()) < 0 ? hedging.getMinDelay() : percentile)
+                .filter(delay -> delay.compareTo(timeout) < 0)
+                .map(delay -> Mono.firstWithSignal(primary, hedge(delay, call)))
+                .orElse(primary);
+        });
+    }
+
+    private <T> Mono<T> hedge(Duration delay, Supplier<Mono<T>> call) {
+        // a failed hedge must not beat a primary call that may still answer
+        return Mono.delay(delay)
+            .flatMap(tick -> budget.tryAcquire() ? timed(call) : Mono.<T>never())
+            .onErrorResume(e -> Mono.never());
+    }
+
+    private <T> Mono<T> timed(Supplier<Mono<T>> call) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return call.get()
+                .doOnSuccess(value -> latencies.record(Duration.ofNanos(System.nanoTime() - start)));
+        });
+    }
+}
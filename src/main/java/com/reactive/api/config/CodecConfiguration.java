@@ -0,0 +1,28 @@
+package com.reactive.api.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.reactive.api.aggregation.AggregationResultEncoder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+
+/**
+ * Codecs of the server. The custom ones are tried before the defaults, so the aggregation responses are written by
+ * their own encoder rather than by Jackson.
+ */
+@Configuration
+public class CodecConfiguration implements WebFluxConfigurer {
+
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public CodecConfiguration(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void configureHttpMessageCodecs(ServerCodecConfigurer configurer) {
+        configurer.customCodecs().register(new AggregationResultEncoder(objectMapper.getFactory()));
+    }
+}
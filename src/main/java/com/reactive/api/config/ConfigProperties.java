@@ -14,8 +14,13 @@ import java.time.Duration;
 public class ConfigProperties {
     private String baseUrl;
     private String url;
+    private String streamUrl;
     private Duration sla;
 
+    private Admission admission = new Admission();
+
+    private ResponseCache responseCache = new ResponseCache();
+
     private String shipmentBaseUrl;
     private String shipmentProductsUrl;
     private Duration shipmentProductsTimeout;
@@ -30,8 +35,24 @@ public class ConfigProperties {
     private String pricingUrl;
     private Duration pricingTimeout;
 
+    private PricingTable pricingTable = new PricingTable();
+
     private Duration apisTimeout;
 
+    /**
+     * Time kept before the request deadline to write the response. The aggregation is cut that long before the
+     * deadline, and the backend calls are bounded by the same time.
+     */
+    private Duration deadlineSafetyMargin = Duration.ofMillis(200);
+
+    private Hedging hedging = new Hedging();
+
+    private Concurrency concurrency = new Concurrency();
+
+    private Breaker circuitBreaker = new Breaker();
+
+    private Http http = new Http();
+
     private Cache cache;
 
     public String getCacheHost() {
@@ -46,13 +67,249 @@ public class ConfigProperties {
         return cache.getExpiration();
     }
 
+    public Codec getCacheCodec() {
+        return cache.getCodec();
+    }
+
+    public int getCacheBatchSize() {
+        return cache.getBatchSize();
+    }
+
+    public Negative getNegativeCache() {
+        return cache.getNegative();
+    }
+
+    public Refresh getCacheRefresh() {
+        return cache.getRefresh();
+    }
+
+    public Local getLocalCache() {
+        return cache.getLocal();
+    }
+
+    public WriteBehind getCacheWriteBehind() {
+        return cache.getWriteBehind();
+    }
+
+    public Tracking getCacheTracking() {
+        return cache.getTracking();
+    }
+
+    public Lease getCacheLease() {
+        return cache.getLease();
+    }
+
     @Getter
     @Setter
-    static class Cache {
+    public static class Cache {
         private boolean enabled;
         private String host;
         private String port;
         private Duration expiration;
+        private int batchSize = 100;
+        private Codec codec = Codec.JSON;
+        private Local local = new Local();
+        private Negative negative = new Negative();
+        private Refresh refresh = new Refresh();
+        private WriteBehind writeBehind = new WriteBehind();
+        private Tracking tracking = new Tracking();
+        private Lease lease = new Lease();
+    }
+
+    /**
+     * Refresh-ahead of the cached values. Once a value is older than {@code aheadFraction} of the cache expiration, it
+     * is served as is while one background refresh is triggered. A value that already expired is kept in Redis for
+     * another {@code staleWindow}, and is served when the backend is unavailable or too slow to refresh it: the refresh
+     * is waited for at most {@code staleTimeout}, and goes on in the background past it.
+     */
+    @Getter
+    @Setter
+    public static class Refresh {
+        private double aheadFraction = 0.8;
+        private Duration staleWindow = Duration.ZERO;
+        private Duration staleTimeout = Duration.ofMillis(200);
+    }
+
+    /**
+     * Writes to Redis taken off the response path. They wait in a queue of at most {@code maxPending} writes, and are
+     * sent as pipelined {@code SET PX} commands once {@code batchSize} are pending or every {@code flushInterval}. The
+     * writes that don't fit in the queue are dropped: the value is still served, just not cached in Redis.
+     */
+    @Getter
+    @Setter
+    public static class WriteBehind {
+        private boolean enabled = true;
+        private int maxPending = 10_000;
+        private int batchSize = 100;
+        private Duration flushInterval = Duration.ofMillis(10);
+    }
+
+    /**
+     * Server-assisted client-side caching. Redis tracks the keys of the caches in broadcasting mode and pushes an
+     * invalidation whenever one of them changes, so the local tier keeps its values as long as Redis does instead of
+     * for its own expiration. Requires Redis 6 or later, which speaks RESP3.
+     */
+    @Getter
+    @Setter
+    public static class Tracking {
+        private boolean enabled = false;
+    }
+
+    /**
+     * Lease taken in Redis by the node fetching a missing key from the backend, so that the other nodes missing it at
+     * the same time wait for the value instead of fetching it too. The lease expires after {@code ttl}. The other nodes
+     * look for the value every {@code pollInterval}, and fetch it themselves when it is not there after
+     * {@code waitTimeout}.
+     */
+    @Getter
+    @Setter
+    public static class Lease {
+        private boolean enabled = false;
+        private Duration ttl = Duration.ofSeconds(3);
+        private Duration waitTimeout = Duration.ofSeconds(1);
+        private Duration pollInterval = Duration.ofMillis(25);
+    }
+
+    /**
+     * Expiration of the fallback values cached when the backend has nothing for a key, or could not answer in time.
+     * A zero expiration disables the negative caching of that kind of fallback.
+     */
+    @Getter
+    @Setter
+    public static class Negative {
+        private Duration emptyExpiration = Duration.ofMinutes(5);
+        private Duration timeoutExpiration = Duration.ofSeconds(10);
+    }
+
+    /**
+     * Format in which values are written to Redis. Both formats are always readable.
+     */
+    public enum Codec {
+        JSON, BINARY
+    }
+
+    /**
+     * In-process (L1) cache tier kept in front of Redis.
+     */
+    @Getter
+    @Setter
+    public static class Local {
+        private boolean enabled = true;
+        private LocalSpec shipment = new LocalSpec();
+        private LocalSpec track = new LocalSpec();
+        private LocalSpec pricing = new LocalSpec();
+    }
+
+    @Getter
+    @Setter
+    public static class LocalSpec {
+        private long maxEntries = 10_000;
+        private Duration expiration = Duration.ofMinutes(5);
+    }
+
+    /**
+     * Admission control of the aggregations. At most {@code maxConcurrent} aggregations run at a time, looking up at most
+     * {@code maxOutstandingKeys} keys in total, and an aggregation predicted to miss its deadline is not started. The
+     * rejected callers are told to retry after {@code retryAfter}, or after the predicted excess when it is longer.
+     */
+    @Getter
+    @Setter
+    public static class Admission {
+        private boolean enabled = true;
+        private int maxConcurrent = 500;
+        private long maxOutstandingKeys = 250_000;
+        private Duration retryAfter = Duration.ofSeconds(1);
+    }
+
+    /**
+     * Cache of the whole aggregation responses, keyed by the normalized parameters. Only the complete responses are
+     * cached, for {@code ttl}, and at most {@code maxEntries} of them.
+     */
+    @Getter
+    @Setter
+    public static class ResponseCache {
+        private boolean enabled = false;
+        private Duration ttl = Duration.ofSeconds(5);
+        private long maxEntries = 10_000;
+    }
+
+    /**
+     * In-memory table of the prices of all the ISO country codes. It is loaded at startup with at most
+     * {@code warmUpConcurrency} calls at a time, then each price is refreshed every {@code refreshInterval}, give or take
+     * the {@code jitter} fraction, at times spread evenly over the interval.
+     */
+    @Getter
+    @Setter
+    public static class PricingTable {
+        private boolean enabled = false;
+        private Duration refreshInterval = Duration.ofMinutes(5);
+        private double jitter = 0.2;
+        private int warmUpConcurrency = 16;
+    }
+
+    /**
+     * Hedged backend requests. A second call is sent when the first one has not answered after the {@code percentile}
+     * of the recent latencies (but never sooner than {@code minDelay}), and hedges are capped at the {@code budget}
+     * fraction of all the backend calls.
+     */
+    @Getter
+    @Setter
+    public static class Hedging {
+        private boolean enabled = false;
+        private double percentile = 0.95;
+        private double budget = 0.05;
+        private Duration minDelay = Duration.ofMillis(5);
+    }
+
+    /**
+     * Adaptive limit of the concurrent calls to each backend. The limit starts at {@code initialLimit} and moves between
+     * {@code minLimit} and {@code maxLimit} with the observed latency, shrinking by {@code backoffRatio} on every
+     * timeout or error. At most {@code maxQueueSize} calls wait for the limit, the others are answered with a fallback.
+     */
+    @Getter
+    @Setter
+    public static class Concurrency {
+        private boolean enabled = true;
+        private int initialLimit = 50;
+        private int minLimit = 10;
+        private int maxLimit = 500;
+        private int maxQueueSize = 1000;
+        private double backoffRatio = 0.9;
+    }
+
+    /**
+     * Circuit breaker of each backend. The circuit opens when at least {@code failureRateThreshold} of the last
+     * {@code windowSize} calls failed or timed out (once {@code minimumCalls} were made), stays open for
+     * {@code openDuration}, then lets {@code halfOpenCalls} probe calls through before closing again.
+     */
+    @Getter
+    @Setter
+    public static class Breaker {
+        private boolean enabled = true;
+        private int windowSize = 50;
+        private int minimumCalls = 20;
+        private double failureRateThreshold = 0.5;
+        private Duration openDuration = Duration.ofSeconds(5);
+        private int halfOpenCalls = 3;
+    }
+
+    /**
+     * Connection pool and HTTP client shared by the calls to the Backend Services API.
+     */
+    @Getter
+    @Setter
+    public static class Http {
+        private int maxConnections = 500;
+        private int pendingAcquireMaxCount = 1000;
+        private Duration pendingAcquireTimeout = Duration.ofSeconds(2);
+        private Duration maxIdleTime = Duration.ofSeconds(30);
+        private Duration maxLifeTime = Duration.ofMinutes(5);
+        private Duration evictInBackground = Duration.ofSeconds(30);
+        private Duration connectTimeout = Duration.ofSeconds(1);
+        private Duration responseTimeout = Duration.ofSeconds(5);
+        private boolean keepAlive = true;
+        private boolean http2 = false;
+        private boolean compression = true;
     }
 
 }
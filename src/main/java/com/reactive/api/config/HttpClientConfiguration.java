@@ -0,0 +1,62 @@
+package com.reactive.api.config;
+
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ClientHttpConnector;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * HTTP client shared by all the calls to the Backend Services API.
+ * <p>
+ * The connection provider keeps one pool per backend host, so the clients of the backends living on the same host
+ * share their connections. The connector is picked up by the auto-configured {@code WebClient.Builder}.
+ */
+@Configuration
+public class HttpClientConfiguration {
+
+    private final ConfigProperties properties;
+
+    @Autowired
+    public HttpClientConfiguration(ConfigProperties properties) {
+        this.properties = properties;
+    }
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider backendConnectionProvider() {
+        ConfigProperties.Http http = properties.getHttp();
+
+        return ConnectionProvider.builder("backend")
+            .maxConnections(http.getMaxConnections())
+            .pendingAcquireMaxCount(http.getPendingAcquireMaxCount())
+            .pendingAcquireTimeout(http.getPendingAcquireTimeout())
+            .maxIdleTime(http.getMaxIdleTime())
+            .maxLifeTime(http.getMaxLifeTime())
+            .evictInBackground(http.getEvictInBackground())
+            .metrics(true)
+            .build();
+    }
+
+    @Bean
+    public HttpClient backendHttpClient(ConnectionProvider backendConnectionProvider) {
+        ConfigProperties.Http http = properties.getHttp();
+
+        HttpClient client = HttpClient.create(backendConnectionProvider)
+            .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) http.getConnectTimeout().toMillis())
+            .responseTimeout(http.getResponseTimeout())
+            .keepAlive(http.isKeepAlive())
+            .compress(http.isCompression());
+
+        // h2c is negotiated with an upgrade, so HTTP/1.1 stays available for backends that don't speak HTTP/2
+        return http.isHttp2() ? client.protocol(HttpProtocol.H2C, HttpProtocol.HTTP11) : client;
+    }
+
+    @Bean
+    public ClientHttpConnector backendHttpConnector(HttpClient backendHttpClient) {
+        return new ReactorClientHttpConnector(backendHttpClient);
+    }
+}
@@ -1,6 +1,7 @@
 package com.reactive.api.config;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
 import org.springframework.context.annotation.Bean;
@@ -17,6 +18,9 @@ public class JacksonConfiguration {
         MAPPER.registerModule(new Jdk8Module());
         MAPPER.setSerializationInclusion(JsonInclude.Include.NON_NULL);
 
+        // cached values written by a newer release may carry fields this one doesn't know
+        MAPPER.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
         return MAPPER;
     }
 }
@@ -2,13 +2,19 @@ package com.reactive.api.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.reactive.api.pricing.Pricing;
+import com.reactive.api.pricing.PricingRedisSerializer;
 import com.reactive.api.shipment.Shipment;
+import com.reactive.api.shipment.ShipmentRedisSerializer;
 import com.reactive.api.track.Track;
+import com.reactive.api.track.TrackRedisSerializer;
+import io.lettuce.core.resource.ClientResources;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.ReactiveRedisOperations;
 import org.springframework.data.redis.core.ReactiveRedisTemplate;
@@ -31,16 +37,23 @@ public class ReactiveRedisConfiguration {
 
     @Bean
     @Primary
-    public ReactiveRedisConnectionFactory reactiveRedisConnectionFactory() {
-        return new LettuceConnectionFactory(
+    public ReactiveRedisConnectionFactory reactiveRedisConnectionFactory(ClientResources clientResources) {
+        RedisStandaloneConfiguration server = new RedisStandaloneConfiguration(
             Objects.requireNonNull(properties.getCacheHost()),
             Integer.parseInt(Objects.requireNonNull(properties.getCachePort()))
         );
+
+        // the client resources auto-configured by Spring Boot record the latency of the Redis commands
+        LettuceClientConfiguration client = LettuceClientConfiguration.builder()
+            .clientResources(clientResources)
+            .build();
+
+        return new LettuceConnectionFactory(server, client);
     }
 
     @Bean
     public ReactiveRedisOperations<String, Pricing> reactiveRedisOperationsPricing(ReactiveRedisConnectionFactory factory, ObjectMapper mapper) {
-        Jackson2JsonRedisSerializer<Pricing> serializer = new Jackson2JsonRedisSerializer<>(mapper, Pricing.class);
+        PricingRedisSerializer serializer = new PricingRedisSerializer(new Jackson2JsonRedisSerializer<>(mapper, Pricing.class), writeBinary());
 
         RedisSerializationContext<String, Pricing> context =
             RedisSerializationContext.<String, Pricing>newSerializationContext(new StringRedisSerializer())
@@ -52,7 +65,7 @@ public class ReactiveRedisConfiguration {
 
     @Bean
     public ReactiveRedisOperations<String, Shipment> reactiveRedisOperationsShipments(ReactiveRedisConnectionFactory factory, ObjectMapper mapper) {
-        Jackson2JsonRedisSerializer<Shipment> serializer = new Jackson2JsonRedisSerializer<>(mapper, Shipment.class);
+        ShipmentRedisSerializer serializer = new ShipmentRedisSerializer(new Jackson2JsonRedisSerializer<>(mapper, Shipment.class), writeBinary());
 
         RedisSerializationContext<String, Shipment> context =
             RedisSerializationContext.<String, Shipment>newSerializationContext(new StringRedisSerializer())
@@ -64,7 +77,7 @@ public class ReactiveRedisConfiguration {
 
     @Bean
     public ReactiveRedisOperations<String, Track> reactiveRedisOperationsTrack(ReactiveRedisConnectionFactory factory, ObjectMapper mapper) {
-        Jackson2JsonRedisSerializer<Track> serializer = new Jackson2JsonRedisSerializer<>(mapper, Track.class);
+        TrackRedisSerializer serializer = new TrackRedisSerializer(new Jackson2JsonRedisSerializer<>(mapper, Track.class), writeBinary());
 
         RedisSerializationContext<String, Track> context =
             RedisSerializationContext.<String, Track>newSerializationContext(new StringRedisSerializer())
@@ -73,5 +86,8 @@ public class ReactiveRedisConfiguration {
 
         return new ReactiveRedisTemplate<>(factory, context);
     }
-}
 
+    private boolean writeBinary() {
+        return properties.getCacheCodec() == ConfigProperties.Codec.BINARY;
+    }
+}
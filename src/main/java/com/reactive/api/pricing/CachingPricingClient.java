@@ -1,54 +1,55 @@
 package com.reactive.api.pricing;
 
+import com.reactive.api.cache.InvalidationTracker;
+import com.reactive.api.cache.TieredCacheClient;
 import com.reactive.api.config.ConfigProperties;
-import lombok.extern.slf4j.Slf4j;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
 import org.springframework.data.redis.core.ReactiveRedisOperations;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-@Slf4j
+import java.util.List;
+import java.util.Optional;
+
 @Component
+@Primary
 @ConditionalOnProperty(name = "aggregation.cache.enabled", havingValue = "true")
 public class CachingPricingClient implements PricingClient {
 
-    private final DefaultPricingClient pricingClient;
-
-    private final ReactiveRedisOperations<String, Pricing> operations;
+    private final TieredCacheClient<Pricing> cache;
 
-    private final ConfigProperties properties;
+    private static final String CACHE_NAME = "pricing";
 
     private static final String KEY_PREFIX = "pricing_";
 
     @Autowired
-    public CachingPricingClient(ConfigProperties configProperties,
+    public CachingPricingClient(DefaultPricingClient pricingClient,
                                 ReactiveRedisOperations<String, Pricing> operations,
-                                ConfigProperties properties) {
+                                ConfigProperties properties,
+                                MeterRegistry meterRegistry,
+                                Optional<InvalidationTracker> invalidationTracker) {
 
-        this.pricingClient = new DefaultPricingClient(configProperties);
-        this.operations = operations;
-        this.properties = properties;
+        this.cache = new TieredCacheClient<>(CACHE_NAME, KEY_PREFIX, properties.getLocalCache().getPricing(), operations,
+            pricingClient::fetchPricing, pricingClient::getFallbackPricing, properties, meterRegistry, invalidationTracker);
     }
 
-    @Override
-    public Mono<Pricing> getPricing(String pricingCountryCode) {
-        String key = KEY_PREFIX + pricingCountryCode;
-        return operations.opsForValue().get(key)
-            .doOnNext(pricing-> log.debug("Returning cached pricing: " + pricing))
-            .onErrorResume(throwable -> Mono.empty())
-            .switchIfEmpty(getAndCachePricing(pricingCountryCode, key));
+    @PreDestroy
+    public void flushWrites() {
+        cache.flushWrites();
     }
 
-    private Mono<Pricing> getAndCachePricing(String pricingCountryCode, String key) {
-        return pricingClient.getPricing(pricingCountryCode)
-            .flatMap(pricing -> pricing.getPrice().isEmpty() ? Mono.just(pricing) : cacheThenReturn(key, pricing));
+    @Override
+    public Mono<Pricing> getPricing(String pricingCountryCode) {
+        return cache.get(pricingCountryCode);
     }
 
-    private Mono<Pricing> cacheThenReturn(String key, Pricing pricing) {
-        return operations.opsForValue()
-            .set(key, pricing, properties.getExpiration())
-            .thenReturn(pricing)
-            .doOnNext(p -> log.debug("Added to cache - pricing: " + p));
+    @Override
+    public Flux<Pricing> getPricing(List<String> pricingCountryCodes) {
+        return cache.get(pricingCountryCodes);
     }
 }
@@ -1,42 +1,92 @@
 package com.reactive.api.pricing;
 
+import com.reactive.api.client.AdaptiveConcurrencyLimiter;
+import com.reactive.api.client.BackendErrors;
+import com.reactive.api.client.BackendMetrics;
+import com.reactive.api.client.CircuitBreaker;
+import com.reactive.api.client.Deadline;
+import com.reactive.api.client.HedgeBudget;
+import com.reactive.api.client.RequestCoalescer;
+import com.reactive.api.client.RequestHedger;
 import com.reactive.api.config.ConfigProperties;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
-import org.springframework.web.reactive.function.client.WebClientException;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
 import java.util.OptionalDouble;
 
 @Slf4j
 @Component
-@ConditionalOnProperty(name = "aggregation.cache.enabled", havingValue = "false")
 public class DefaultPricingClient implements PricingClient {
 
     private final WebClient client;
 
     private final ConfigProperties configProperties;
 
+    private final RequestCoalescer<String, Pricing> coalescer = new RequestCoalescer<>();
+
+    private final RequestHedger hedger;
+
+    private final AdaptiveConcurrencyLimiter limiter;
+
+    private final CircuitBreaker circuitBreaker;
+
+    private final BackendMetrics metrics;
 
     @Autowired
-    public DefaultPricingClient(ConfigProperties configProperties) {
-        this.client = WebClient.create(configProperties.getPricingBaseUrl());
+    public DefaultPricingClient(ConfigProperties configProperties,
+                                WebClient.Builder webClientBuilder,
+                                HedgeBudget hedgeBudget,
+                                MeterRegistry meterRegistry) {
+        this.client = webClientBuilder.baseUrl(configProperties.getPricingBaseUrl()).build();
         this.configProperties = configProperties;
+        this.hedger = new RequestHedger(configProperties.getHedging(), hedgeBudget);
+        this.limiter = new AdaptiveConcurrencyLimiter("pricing", configProperties, meterRegistry);
+        this.circuitBreaker = new CircuitBreaker("pricing", configProperties.getCircuitBreaker(), meterRegistry);
+        this.metrics = new BackendMetrics("pricing", meterRegistry);
     }
 
     public Mono<Pricing> getPricing(String pricingCountryCode) {
-        return getPrice(pricingCountryCode)
-            .map(price -> new Pricing(pricingCountryCode, OptionalDouble.of(price)))
-            .timeout(configProperties.getPricingTimeout(), getFallbackPricingMono(pricingCountryCode))
+        return fetchPricing(pricingCountryCode)
+            .switchIfEmpty(Mono.defer(() -> getFallbackPricingMono(pricingCountryCode)))
+
+            // cut by the request deadline, the key is reported as unresolved rather than as empty
+            .onErrorResume(BackendErrors::isDeadlineExceeded, e -> Mono.empty())
 
-            // handles service unavailable error and other errors
-            .onErrorResume(e -> e instanceof WebClientException, e -> getFallbackPricingMono(pricingCountryCode))
+            // handles timeouts, service unavailable error and other errors
+            .onErrorResume(BackendErrors::isRecoverable, e -> getFallbackPricingMono(pricingCountryCode))
             .doOnNext(pricing -> log.debug("Pricing result: " + pricing));
     }
 
+    /**
+     * Calls the API without falling back. Completes empty when the API has nothing for the country code, and fails
+     * when the call times out, the API is unavailable, its circuit is open or the request deadline is reached.
+     */
+    public Mono<Pricing> fetchPricing(String pricingCountryCode) {
+        Duration timeout = configProperties.getPricingTimeout();
+
+        return Deadline.within(timeout, configProperties.getDeadlineSafetyMargin(), deadline ->
+            coalescer.execute(pricingCountryCode, deadline, shared -> requestPricing(pricingCountryCode, timeout, shared)));
+    }
+
+    // one call as the backend sees it, shared by the coalesced callers, with the latest of their deadlines
+    private Mono<Pricing> requestPricing(String pricingCountryCode, Duration timeout, Deadline deadline) {
+        return metrics.timed(circuitBreaker.execute(() ->
+            hedger.execute(timeout, () -> attemptPricing(pricingCountryCode, timeout, deadline)).timeout(timeout)));
+    }
+
+    // hedging may send two attempts of the same call
+    private Mono<Pricing> attemptPricing(String pricingCountryCode, Duration timeout, Deadline deadline) {
+        return limiter.execute(deadline, () -> getPrice(pricingCountryCode)
+            .map(price -> new Pricing(pricingCountryCode, OptionalDouble.of(price)))
+            .timeout(timeout)
+            .onErrorResume(BackendErrors::isNotFound, e -> Mono.empty()));
+    }
+
     private Mono<Double> getPrice(String pricingCountryCode) {
         return client.get()
             .uri(configProperties.getPricingUrl(), pricingCountryCode)
@@ -46,10 +96,11 @@ public class DefaultPricingClient implements PricingClient {
 
     private Mono<Pricing> getFallbackPricingMono(String pricingCountryCode) {
         return Mono.just(getFallbackPricing(pricingCountryCode))
+            .doOnNext(p -> metrics.fallback())
             .doOnNext(track -> log.debug("Falling back on empty pricing"));
     }
 
-    private Pricing getFallbackPricing(String pricingCountryCode) {
+    Pricing getFallbackPricing(String pricingCountryCode) {
         return new Pricing(pricingCountryCode, OptionalDouble.empty());
     }
 }
@@ -3,25 +3,21 @@ package com.reactive.api.pricing;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
-import reactor.core.publisher.Mono;
 
 import java.util.List;
-import java.util.Map;
-import java.util.OptionalDouble;
+import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
 public class DefaultPricingService implements PricingService {
     private final PricingClient pricingClient;
 
-    public Mono<Map<String, OptionalDouble>> getPricing(List<String> pricingCountryCodes) {
-        return Flux.fromIterable(pricingCountryCodes)
-            .flatMap(pricingClient::getPricing)
-            .collectMap(Pricing::getCountryCode, Pricing::getPrice)
-            .doOnNext(this::removeEmptyValues);
-    }
+    // only present when the prices are preloaded
+    private final Optional<PricingTable> pricingTable;
 
-    private boolean removeEmptyValues(Map<String, OptionalDouble> pricing) {
-        return pricing.entrySet().removeIf(entry -> entry.getValue().isEmpty());
+    public Flux<Pricing> streamPricing(List<String> pricingCountryCodes) {
+        return pricingTable
+            .map(table -> table.getPricing(pricingCountryCodes, pricingClient))
+            .orElseGet(() -> pricingClient.getPricing(pricingCountryCodes));
     }
 }
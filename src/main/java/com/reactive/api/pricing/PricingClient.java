@@ -1,9 +1,19 @@
 package com.reactive.api.pricing;
 
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+
 public interface PricingClient {
 
     Mono<Pricing> getPricing(String pricingCountryCode);
 
+    /**
+     * Resolves several keys at once. Implementations backed by a cache override this to batch their lookups.
+     */
+    default Flux<Pricing> getPricing(List<String> pricingCountryCodes) {
+        return Flux.fromIterable(pricingCountryCodes).flatMap(pricingCountryCode -> getPricing(pricingCountryCode));
+    }
+
 }
@@ -0,0 +1,56 @@
+package com.reactive.api.pricing;
+
+import com.reactive.api.cache.Fallback;
+import com.reactive.api.cache.VersionedRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.nio.ByteBuffer;
+import java.util.OptionalDouble;
+
+/**
+ * Binary Redis codec of {@link Pricing}.
+ * <p>
+ * Version 1 layout: version byte, country code (length-prefixed UTF-8), presence byte, raw IEEE 754 price.
+ * Version 2 inserts the cache timestamp (epoch millis, {@code 0} when unknown) right after the version byte, and
+ * version 3 the {@link Fallback} ordinal ({@code -1} for an answer) right after the timestamp.
+ */
+public class PricingRedisSerializer extends VersionedRedisSerializer<Pricing> {
+
+    private static final byte VERSION_1 = 1;
+    private static final byte VERSION_2 = 2;
+    private static final byte VERSION_3 = 3;
+
+    public PricingRedisSerializer(RedisSerializer<Pricing> jsonSerializer, boolean writeBinary) {
+        super(jsonSerializer, writeBinary);
+    }
+
+    @Override
+    protected byte[] encode(Pricing pricing) {
+        OptionalDouble price = pricing.getPrice() == null ? OptionalDouble.empty() : pricing.getPrice();
+        int size = 1 + Long.BYTES + 1 + sizeOf(pricing.getCountryCode()) + 1 + (price.isPresent() ? Double.BYTES : 0);
+
+        ByteBuffer buffer = ByteBuffer.allocate(size)
+            .put(VERSION_3);
+        putTimestamp(buffer, pricing.getCachedAt());
+        putFallback(buffer, pricing.getFallback());
+        putString(buffer, pricing.getCountryCode());
+        buffer.put((byte) (price.isPresent() ? 1 : 0));
+        price.ifPresent(buffer::putDouble);
+
+        return buffer.array();
+    }
+
+    @Override
+    protected Pricing decode(byte version, ByteBuffer buffer) {
+        if (version != VERSION_1 && version != VERSION_2 && version != VERSION_3) {
+            throw unsupportedVersion(version);
+        }
+
+        Long cachedAt = version >= VERSION_2 ? getTimestamp(buffer) : null;
+        Fallback fallback = version >= VERSION_3 ? getFallback(buffer) : null;
+        String countryCode = getString(buffer);
+        OptionalDouble price = buffer.get() == 1 ? OptionalDouble.of(buffer.getDouble()) : OptionalDouble.empty();
+
+        return new Pricing(countryCode, price, cachedAt, fallback);
+    }
+}
@@ -1,12 +1,15 @@
 package com.reactive.api.pricing;
 
-import reactor.core.publisher.Mono;
+import reactor.core.publisher.Flux;
 
 import java.util.List;
-import java.util.Map;
-import java.util.OptionalDouble;
 
 public interface PricingService {
 
-    Mono<Map<String, OptionalDouble>> getPricing(List<String> pricingCountryCodes);
+    /**
+     * Emits the results one by one, as soon as each of them is available. Keys the backend has nothing for (or could not
+     * answer in time) are emitted with an empty value. Keys cut by the request deadline are not emitted: the
+     * aggregation lists them in {@code AggregationResult.unresolved}.
+     */
+    Flux<Pricing> streamPricing(List<String> pricingCountryCodes);
 }
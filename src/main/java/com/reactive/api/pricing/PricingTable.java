@@ -0,0 +1,160 @@
+package com.reactive.api.pricing;
+
+import com.reactive.api.config.ConfigProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.OptionalDouble;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+
+/**
+ * Prices of all the ISO country codes, kept in memory so that the requests never wait for them.
+ * <p>
+ * The codes are a closed domain of two letters, so the prices live in a dense array indexed by the letters. They are
+ * all loaded from the backend at startup, then refreshed in the background: each one at its own time, spread over the
+ * refresh interval, so the backend sees a steady trickle of calls rather than a burst. A price that cannot be refreshed
+ * is kept until the next attempt. The codes the table holds no price for (before the first load, or outside the ISO
+ * list) are resolved by the regular pricing client.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "aggregation.pricing-table.enabled", havingValue = "true")
+public class PricingTable {
+
+    private static final List<String> COUNTRY_CODES = Arrays.asList(Locale.getISOCountries());
+
+    private final Function<String, Mono<Pricing>> backend;
+
+    private final ConfigProperties.PricingTable properties;
+
+    private final AtomicReferenceArray<Pricing> prices = new AtomicReferenceArray<>(26 * 26);
+
+    private Disposable refreshes;
+
+    @Autowired
+    public PricingTable(DefaultPricingClient pricingClient, ConfigProperties configProperties, MeterRegistry meterRegistry) {
+        this(pricingClient::fetchPricing, configProperties.getPricingTable());
+
+        Gauge.builder("pricing.table.size", this, PricingTable::size)
+            .register(meterRegistry);
+    }
+
+    PricingTable(Function<String, Mono<Pricing>> backend, ConfigProperties.PricingTable properties) {
+        this.backend = backend;
+        this.properties = properties;
+    }
+
+    @PostConstruct
+    public void start() {
+        refreshes = warmUp()
+            .thenMany(Flux.fromIterable(COUNTRY_CODES).flatMap(this::refreshPeriodically, COUNTRY_CODES.size()))
+            .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (refreshes != null) {
+            refreshes.dispose();
+        }
+    }
+
+    /**
+     * Answers from the table, and resolves the country codes it holds no price for with the pricing client.
+     */
+    public Flux<Pricing> getPricing(List<String> pricingCountryCodes, PricingClient pricingClient) {
+        List<Pricing> found = new ArrayList<>(pricingCountryCodes.size());
+        List<String> missing = new ArrayList<>();
+
+        for (String pricingCountryCode : pricingCountryCodes) {
+            Pricing pricing = get(pricingCountryCode);
+            if (pricing != null) {
+                found.add(pricing);
+            } else {
+                missing.add(pricingCountryCode);
+            }
+        }
+
+        Flux<Pricing> fromTable = Flux.fromIterable(found);
+        return missing.isEmpty() ? fromTable : Flux.merge(fromTable, pricingClient.getPricing(missing));
+    }
+
+    Mono<Void> warmUp() {
+        return Flux.fromIterable(COUNTRY_CODES)
+            .flatMap(this::refresh, properties.getWarmUpConcurrency())
+            .then()
+            .doOnSuccess(v -> log.info("Pricing table loaded: " + size() + " of " + COUNTRY_CODES.size() + " country codes"));
+    }
+
+    Pricing get(String pricingCountryCode) {
+        int index = indexOf(pricingCountryCode);
+        return index < 0 ? null : prices.get(index);
+    }
+
+    // the first refresh falls anywhere in the interval, so that the refreshes of the country codes are staggered
+    private Flux<Void> refreshPeriodically(String pricingCountryCode) {
+        Duration interval = properties.getRefreshInterval();
+
+        return Flux.range(0, Integer.MAX_VALUE)
+            .concatMap(i -> Mono.delay(i == 0 ? fractionOf(interval, 0, 1) : jittered(interval))
+                .then(refresh(pricingCountryCode)));
+    }
+
+    private Mono<Void> refresh(String pricingCountryCode) {
+        return backend.apply(pricingCountryCode)
+            .defaultIfEmpty(new Pricing(pricingCountryCode, OptionalDouble.empty()))
+            .doOnNext(pricing -> prices.set(indexOf(pricingCountryCode), pricing))
+            .onErrorResume(e -> {
+                log.debug("Could not refresh the price of " + pricingCountryCode + ", keeping the previous one", e);
+                return Mono.empty();
+            })
+            .then();
+    }
+
+    private Duration jittered(Duration interval) {
+        double jitter = properties.getJitter();
+        return fractionOf(interval, 1 - jitter, 1 + jitter);
+    }
+
+    private int size() {
+        int size = 0;
+        for (int i = 0; i < prices.length(); i++) {
+            size += prices.get(i) != null ? 1 : 0;
+        }
+        return size;
+    }
+
+    private static Duration fractionOf(Duration interval, double from, double to) {
+        double fraction = from < to ? ThreadLocalRandom.current().nextDouble(from, to) : from;
+        return Duration.ofMillis((long) (interval.toMillis() * fraction));
+    }
+
+    private static int indexOf(String pricingCountryCode) {
+        if (pricingCountryCode.length() != 2) {
+            return -1;
+        }
+
+        int first = pricingCountryCode.charAt(0) - 'A';
+        int second = pricingCountryCode.charAt(1) - 'A';
+        if (first < 0 || first >= 26 || second < 0 || second >= 26) {
+            return -1;
+        }
+
+        return first * 26 + second;
+    }
+}
@@ -1,55 +1,55 @@
 package com.reactive.api.shipment;
 
+import com.reactive.api.cache.InvalidationTracker;
+import com.reactive.api.cache.TieredCacheClient;
 import com.reactive.api.config.ConfigProperties;
-import lombok.extern.slf4j.Slf4j;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
 import org.springframework.data.redis.core.ReactiveRedisOperations;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-@Slf4j
+
+import java.util.List;
+import java.util.Optional;
+
 @Component
+@Primary
 @ConditionalOnProperty(name = "aggregation.cache.enabled", havingValue = "true")
 public class CachingShipmentClient implements ShipmentClient {
 
-    private final ShipmentClient shipmentClient;
+    private final TieredCacheClient<Shipment> cache;
 
-    private final ReactiveRedisOperations<String, Shipment> operations;
-
-    private final ConfigProperties properties;
+    private static final String CACHE_NAME = "shipment";
 
     private static final String KEY_PREFIX = "shipment_";
 
     @Autowired
-    public CachingShipmentClient(ConfigProperties configProperties,
+    public CachingShipmentClient(DefaultShipmentClient shipmentClient,
                                  ReactiveRedisOperations<String, Shipment> operations,
-                                 ConfigProperties properties) {
+                                 ConfigProperties properties,
+                                 MeterRegistry meterRegistry,
+                                 Optional<InvalidationTracker> invalidationTracker) {
 
-        this.shipmentClient = new DefaultShipmentClient(configProperties);
-        this.operations = operations;
-        this.properties = properties;
+        this.cache = new TieredCacheClient<>(CACHE_NAME, KEY_PREFIX, properties.getLocalCache().getShipment(), operations,
+            shipmentClient::fetchShipment, shipmentClient::getFallbackShipment, properties, meterRegistry, invalidationTracker);
     }
 
-    @Override
-    public Mono<Shipment> getShipment(String shipmentsOrderNumbers) {
-        String key = KEY_PREFIX + shipmentsOrderNumbers;
-        return operations.opsForValue().get(key)
-            .doOnNext(shipment -> log.debug("Returning cached shipment: " + shipment))
-            .onErrorResume(throwable -> Mono.empty())
-            .switchIfEmpty(getAndCacheShipment(shipmentsOrderNumbers, key));
+    @PreDestroy
+    public void flushWrites() {
+        cache.flushWrites();
     }
 
-    private Mono<Shipment> getAndCacheShipment(String shipmentsOrderNumbers, String key) {
-        return shipmentClient.getShipment(shipmentsOrderNumbers)
-            .flatMap(shipment -> shipment.getProducts().isEmpty() ? Mono.just(shipment) : cacheThenReturn(key, shipment));
-
+    @Override
+    public Mono<Shipment> getShipment(String shipmentOrderNumber) {
+        return cache.get(shipmentOrderNumber);
     }
 
-    private Mono<Shipment> cacheThenReturn(String key, Shipment shipment) {
-        return operations.opsForValue()
-            .set(key, shipment, properties.getExpiration())
-            .thenReturn(shipment)
-            .doOnNext(s -> log.debug("Added to cache - shipment: " + s));
+    @Override
+    public Flux<Shipment> getShipment(List<String> shipmentOrderNumbers) {
+        return cache.get(shipmentOrderNumbers);
     }
-
 }
@@ -1,45 +1,94 @@
 package com.reactive.api.shipment;
 
+import com.reactive.api.client.AdaptiveConcurrencyLimiter;
+import com.reactive.api.client.BackendErrors;
+import com.reactive.api.client.BackendMetrics;
+import com.reactive.api.client.CircuitBreaker;
+import com.reactive.api.client.Deadline;
+import com.reactive.api.client.HedgeBudget;
+import com.reactive.api.client.RequestCoalescer;
+import com.reactive.api.client.RequestHedger;
 import com.reactive.api.config.ConfigProperties;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
-import org.springframework.web.reactive.function.client.WebClientException;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
 
 @Slf4j
 @Component
-@ConditionalOnProperty(name = "aggregation.cache.enabled", havingValue = "false")
 public class DefaultShipmentClient implements ShipmentClient {
 
     private final WebClient client;
 
     private final ConfigProperties configProperties;
 
+    private final RequestCoalescer<String, Shipment> coalescer = new RequestCoalescer<>();
+
+    private final RequestHedger hedger;
+
+    private final AdaptiveConcurrencyLimiter limiter;
+
+    private final CircuitBreaker circuitBreaker;
+
+    private final BackendMetrics metrics;
 
     @Autowired
-    public DefaultShipmentClient(ConfigProperties configProperties) {
-        this.client = WebClient.create(configProperties.getShipmentBaseUrl());
+    public DefaultShipmentClient(ConfigProperties configProperties,
+                                 WebClient.Builder webClientBuilder,
+                                 HedgeBudget hedgeBudget,
+                                 MeterRegistry meterRegistry) {
+        this.client = webClientBuilder.baseUrl(configProperties.getShipmentBaseUrl()).build();
         this.configProperties = configProperties;
+        this.hedger = new RequestHedger(configProperties.getHedging(), hedgeBudget);
+        this.limiter = new AdaptiveConcurrencyLimiter("shipment", configProperties, meterRegistry);
+        this.circuitBreaker = new CircuitBreaker("shipment", configProperties.getCircuitBreaker(), meterRegistry);
+        this.metrics = new BackendMetrics("shipment", meterRegistry);
     }
 
     public Mono<Shipment> getShipment(String orderNumber) {
+        return fetchShipment(orderNumber)
+            .switchIfEmpty(Mono.defer(() -> getFallbackShipmentMono(orderNumber)))
 
-        return getShipmentProducts(orderNumber)
-            .map(products -> new Shipment(orderNumber, Optional.of(products)))
-            .timeout(configProperties.getShipmentProductsTimeout(), getFallbackShipmentMono(orderNumber))
+            // cut by the request deadline, the key is reported as unresolved rather than as empty
+            .onErrorResume(BackendErrors::isDeadlineExceeded, e -> Mono.empty())
 
-            // handles service unavailable error and other errors
-            .onErrorResume(e -> e instanceof WebClientException, e -> getFallbackShipmentMono(orderNumber))
+            // handles timeouts, service unavailable error and other errors
+            .onErrorResume(BackendErrors::isRecoverable, e -> getFallbackShipmentMono(orderNumber))
             .doOnNext(shipment -> log.debug("Shipment result: " + shipment));
     }
 
+    /**
+     * Calls the API without falling back. Completes empty when the API has nothing for the order number, and fails
+     * when the call times out, the API is unavailable, its circuit is open or the request deadline is reached.
+     */
+    public Mono<Shipment> fetchShipment(String orderNumber) {
+        Duration timeout = configProperties.getShipmentProductsTimeout();
+
+        return Deadline.within(timeout, configProperties.getDeadlineSafetyMargin(), deadline ->
+            coalescer.execute(orderNumber, deadline, shared -> requestShipment(orderNumber, timeout, shared)));
+    }
+
+    // one call as the backend sees it, shared by the coalesced callers, with the latest of their deadlines
+    private Mono<Shipment> requestShipment(String orderNumber, Duration timeout, Deadline deadline) {
+        return metrics.timed(circuitBreaker.execute(() ->
+            hedger.execute(timeout, () -> attemptShipment(orderNumber, timeout, deadline)).timeout(timeout)));
+    }
+
+    // hedging may send two attempts of the same call
+    private Mono<Shipment> attemptShipment(String orderNumber, Duration timeout, Deadline deadline) {
+        return limiter.execute(deadline, () -> getShipmentProducts(orderNumber)
+            .map(products -> new Shipment(orderNumber, Optional.of(products)))
+            .timeout(timeout)
+            .onErrorResume(BackendErrors::isNotFound, e -> Mono.empty()));
+    }
+
     private Mono<List<Product>> getShipmentProducts(String orderNumber) {
         return client.get()
             .uri(configProperties.getShipmentProductsUrl(), orderNumber)
@@ -50,10 +99,11 @@ public class DefaultShipmentClient implements ShipmentClient {
 
     private Mono<Shipment> getFallbackShipmentMono(String orderNumber) {
         return Mono.just(getFallbackShipment(orderNumber))
+            .doOnNext(s -> metrics.fallback())
             .doOnNext(track -> log.debug("Falling back on empty shipment"));
     }
 
-    private Shipment getFallbackShipment(String orderNumber) {
+    Shipment getFallbackShipment(String orderNumber) {
         return new Shipment(orderNumber, Optional.empty());
     }
 }
@@ -1,9 +1,13 @@
 package com.reactive.api.shipment;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.reactive.api.cache.CachedValue;
+import com.reactive.api.cache.Fallback;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import lombok.With;
 
 import java.util.List;
 import java.util.Optional;
@@ -12,8 +16,31 @@ import java.util.Optional;
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
-public class Shipment {
+public class Shipment implements CachedValue<Shipment> {
     private String orderNumber;
     private Optional<List<Product>> products;
 
+    /**
+     * Epoch millis at which the value was written to the cache. Not set for values that never went through the cache,
+     * nor for negative cache entries.
+     */
+    @With
+    private Long cachedAt;
+
+    /**
+     * Why the value is a fallback cached in place of an answer, which decides how long it stays cached. Not set for the
+     * answers of the backend.
+     */
+    @With
+    private Fallback fallback;
+
+    public Shipment(String orderNumber, Optional<List<Product>> products) {
+        this(orderNumber, products, null, null);
+    }
+
+    @Override
+    @JsonIgnore
+    public boolean isEmpty() {
+        return products == null || products.isEmpty();
+    }
 }
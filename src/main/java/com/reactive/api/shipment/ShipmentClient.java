@@ -1,7 +1,17 @@
 package com.reactive.api.shipment;
 
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+
 public interface ShipmentClient {
     Mono<Shipment> getShipment(String orderNumber);
+
+    /**
+     * Resolves several keys at once. Implementations backed by a cache override this to batch their lookups.
+     */
+    default Flux<Shipment> getShipment(List<String> orderNumbers) {
+        return Flux.fromIterable(orderNumbers).flatMap(orderNumber -> getShipment(orderNumber));
+    }
 }
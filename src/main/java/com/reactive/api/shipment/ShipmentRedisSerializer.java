@@ -0,0 +1,96 @@
+package com.reactive.api.shipment;
+
+import com.reactive.api.cache.Fallback;
+import com.reactive.api.cache.VersionedRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Binary Redis codec of {@link Shipment}.
+ * <p>
+ * Version 1 layout: version byte, order number (length-prefixed UTF-8), product count ({@code 0xFFFF} when empty),
+ * then the product ordinals packed 2 bits each. Version 2 inserts the cache timestamp (epoch millis, {@code 0} when
+ * unknown) right after the version byte, and version 3 the {@link Fallback} ordinal ({@code -1} for an answer) right
+ * after the timestamp. {@link Product} constants must only ever be appended, and there can be at most 4 of them.
+ */
+public class ShipmentRedisSerializer extends VersionedRedisSerializer<Shipment> {
+
+    private static final byte VERSION_1 = 1;
+    private static final byte VERSION_2 = 2;
+    private static final byte VERSION_3 = 3;
+
+    private static final int NO_PRODUCTS = 0xFFFF;
+
+    private static final int BITS_PER_PRODUCT = 2;
+    private static final int PRODUCTS_PER_BYTE = Byte.SIZE / BITS_PER_PRODUCT;
+    private static final int PRODUCT_MASK = (1 << BITS_PER_PRODUCT) - 1;
+
+    private static final Product[] PRODUCTS = Product.values();
+
+    public ShipmentRedisSerializer(RedisSerializer<Shipment> jsonSerializer, boolean writeBinary) {
+        super(jsonSerializer, writeBinary);
+    }
+
+    @Override
+    protected byte[] encode(Shipment shipment) {
+        List<Product> products = shipment.getProducts() == null ? null : shipment.getProducts().orElse(null);
+        int count = products == null ? 0 : products.size();
+        if (count >= NO_PRODUCTS) {
+            throw new SerializationException("Too many products for the binary cache codec: " + count);
+        }
+
+        int packedSize = (count + PRODUCTS_PER_BYTE - 1) / PRODUCTS_PER_BYTE;
+
+        ByteBuffer buffer = ByteBuffer.allocate(1 + Long.BYTES + 1 + sizeOf(shipment.getOrderNumber()) + Short.BYTES + packedSize)
+            .put(VERSION_3);
+        putTimestamp(buffer, shipment.getCachedAt());
+        putFallback(buffer, shipment.getFallback());
+        putString(buffer, shipment.getOrderNumber());
+        buffer.putShort((short) (products == null ? NO_PRODUCTS : count));
+
+        byte packed = 0;
+        for (int i = 0; i < count; i++) {
+            int shift = (i % PRODUCTS_PER_BYTE) * BITS_PER_PRODUCT;
+            packed |= (byte) (products.get(i).ordinal() << shift);
+
+            if (i % PRODUCTS_PER_BYTE == PRODUCTS_PER_BYTE - 1 || i == count - 1) {
+                buffer.put(packed);
+                packed = 0;
+            }
+        }
+
+        return buffer.array();
+    }
+
+    @Override
+    protected Shipment decode(byte version, ByteBuffer buffer) {
+        if (version != VERSION_1 && version != VERSION_2 && version != VERSION_3) {
+            throw unsupportedVersion(version);
+        }
+
+        Long cachedAt = version >= VERSION_2 ? getTimestamp(buffer) : null;
+        Fallback fallback = version >= VERSION_3 ? getFallback(buffer) : null;
+        String orderNumber = getString(buffer);
+        int count = Short.toUnsignedInt(buffer.getShort());
+        if (count == NO_PRODUCTS) {
+            return new Shipment(orderNumber, Optional.empty(), cachedAt, fallback);
+        }
+
+        List<Product> products = new ArrayList<>(count);
+        byte packed = 0;
+        for (int i = 0; i < count; i++) {
+            if (i % PRODUCTS_PER_BYTE == 0) {
+                packed = buffer.get();
+            }
+            int shift = (i % PRODUCTS_PER_BYTE) * BITS_PER_PRODUCT;
+            products.add(PRODUCTS[(packed >> shift) & PRODUCT_MASK]);
+        }
+
+        return new Shipment(orderNumber, Optional.of(products), cachedAt, fallback);
+    }
+}
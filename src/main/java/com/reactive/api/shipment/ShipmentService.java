@@ -1,11 +1,15 @@
 package com.reactive.api.shipment;
 
-import reactor.core.publisher.Mono;
+import reactor.core.publisher.Flux;
 
 import java.util.List;
-import java.util.Map;
-import java.util.Optional;
 
 public interface ShipmentService {
-    Mono<Map<String, Optional<List<Product>>>> getShipment(List<String> shipmentsOrderNumbers);
+
+    /**
+     * Emits the results one by one, as soon as each of them is available. Keys the backend has nothing for (or could not
+     * answer in time) are emitted with an empty value. Keys cut by the request deadline are not emitted: the
+     * aggregation lists them in {@code AggregationResult.unresolved}.
+     */
+    Flux<Shipment> streamShipment(List<String> shipmentsOrderNumbers);
     }
@@ -1,55 +1,55 @@
 package com.reactive.api.track;
 
+import com.reactive.api.cache.InvalidationTracker;
+import com.reactive.api.cache.TieredCacheClient;
 import com.reactive.api.config.ConfigProperties;
-import lombok.extern.slf4j.Slf4j;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
 import org.springframework.data.redis.core.ReactiveRedisOperations;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-@Slf4j
+import java.util.List;
+import java.util.Optional;
+
 @Component
+@Primary
 @ConditionalOnProperty(name = "aggregation.cache.enabled", havingValue = "true")
 public class CachingTrackClient implements TrackClient {
 
-    private final TrackClient trackClient;
-
-    private final ReactiveRedisOperations<String, Track> operations;
+    private final TieredCacheClient<Track> cache;
 
-    private final ConfigProperties properties;
+    private static final String CACHE_NAME = "track";
 
     private static final String KEY_PREFIX = "track_";
 
     @Autowired
-    public CachingTrackClient(ConfigProperties configProperties,
+    public CachingTrackClient(DefaultTrackClient trackClient,
                               ReactiveRedisOperations<String, Track> operations,
-                              ConfigProperties properties) {
+                              ConfigProperties properties,
+                              MeterRegistry meterRegistry,
+                              Optional<InvalidationTracker> invalidationTracker) {
 
-        this.trackClient = new DefaultTrackClient(configProperties);
-        this.operations = operations;
-        this.properties = properties;
+        this.cache = new TieredCacheClient<>(CACHE_NAME, KEY_PREFIX, properties.getLocalCache().getTrack(), operations,
+            trackClient::fetchTrack, trackClient::getFallbackTrack, properties, meterRegistry, invalidationTracker);
     }
 
-    @Override
-    public Mono<Track> getTrack(String trackOrderNumber) {
-        String key = KEY_PREFIX + trackOrderNumber;
-        return operations.opsForValue().get(key)
-            .doOnNext(track -> log.debug("Returning cached track: " + track))
-            .onErrorResume(throwable -> Mono.empty())
-            .switchIfEmpty(getAndCacheTrack(trackOrderNumber, key));
+    @PreDestroy
+    public void flushWrites() {
+        cache.flushWrites();
     }
 
-    private Mono<Track> getAndCacheTrack(String trackOrderNumber, String key) {
-        return trackClient.getTrack(trackOrderNumber)
-            .flatMap(track -> track.getStatus().isEmpty() ? Mono.just(track) : cacheThenReturn(key, track));
+    @Override
+    public Mono<Track> getTrack(String trackOrderNumber) {
+        return cache.get(trackOrderNumber);
     }
 
-    private Mono<Track> cacheThenReturn(String key, Track track) {
-        return operations.opsForValue()
-            .set(key, track, properties.getExpiration())
-            .thenReturn(track)
-            .doOnNext(t -> log.debug("Added to cache - track: " + t));
+    @Override
+    public Flux<Track> getTrack(List<String> trackOrderNumbers) {
+        return cache.get(trackOrderNumbers);
     }
-
 }
@@ -1,43 +1,92 @@
 package com.reactive.api.track;
 
+import com.reactive.api.client.AdaptiveConcurrencyLimiter;
+import com.reactive.api.client.BackendErrors;
+import com.reactive.api.client.BackendMetrics;
+import com.reactive.api.client.CircuitBreaker;
+import com.reactive.api.client.Deadline;
+import com.reactive.api.client.HedgeBudget;
+import com.reactive.api.client.RequestCoalescer;
+import com.reactive.api.client.RequestHedger;
 import com.reactive.api.config.ConfigProperties;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
-import org.springframework.web.reactive.function.client.WebClientException;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
 import java.util.Optional;
 
 @Slf4j
 @Component
-@ConditionalOnProperty(name = "aggregation.cache.enabled", havingValue = "false")
 public class DefaultTrackClient implements TrackClient {
 
     private final WebClient client;
 
     private final ConfigProperties configProperties;
 
+    private final RequestCoalescer<String, Track> coalescer = new RequestCoalescer<>();
+
+    private final RequestHedger hedger;
+
+    private final AdaptiveConcurrencyLimiter limiter;
+
+    private final CircuitBreaker circuitBreaker;
+
+    private final BackendMetrics metrics;
 
     @Autowired
-    public DefaultTrackClient(ConfigProperties configProperties) {
-        this.client = WebClient.create(configProperties.getTrackBaseUrl());
+    public DefaultTrackClient(ConfigProperties configProperties,
+                              WebClient.Builder webClientBuilder,
+                              HedgeBudget hedgeBudget,
+                              MeterRegistry meterRegistry) {
+        this.client = webClientBuilder.baseUrl(configProperties.getTrackBaseUrl()).build();
         this.configProperties = configProperties;
+        this.hedger = new RequestHedger(configProperties.getHedging(), hedgeBudget);
+        this.limiter = new AdaptiveConcurrencyLimiter("track", configProperties, meterRegistry);
+        this.circuitBreaker = new CircuitBreaker("track", configProperties.getCircuitBreaker(), meterRegistry);
+        this.metrics = new BackendMetrics("track", meterRegistry);
     }
 
     public Mono<Track> getTrack(String orderNumber) {
+        return fetchTrack(orderNumber)
+            .switchIfEmpty(Mono.defer(() -> getFallbackTrackMono(orderNumber)))
 
-        return getTrackStatus(orderNumber)
-            .map(status -> new Track(orderNumber, Optional.of(status)))
-            .timeout(configProperties.getTrackStatusTimeout(), getFallbackTrackMono(orderNumber))
+            // cut by the request deadline, the key is reported as unresolved rather than as empty
+            .onErrorResume(BackendErrors::isDeadlineExceeded, e -> Mono.empty())
 
-            // handles service unavailable error and other errors
-            .onErrorResume(e -> e instanceof WebClientException, e -> getFallbackTrackMono(orderNumber))
+            // handles timeouts, service unavailable error and other errors
+            .onErrorResume(BackendErrors::isRecoverable, e -> getFallbackTrackMono(orderNumber))
             .doOnNext(track -> log.debug("Track result: " + track));
     }
 
+    /**
+     * Calls the API without falling back. Completes empty when the API has nothing for the order number, and fails
+     * when the call times out, the API is unavailable, its circuit is open or the request deadline is reached.
+     */
+    public Mono<Track> fetchTrack(String orderNumber) {
+        Duration timeout = configProperties.getTrackStatusTimeout();
+
+        return Deadline.within(timeout, configProperties.getDeadlineSafetyMargin(), deadline ->
+            coalescer.execute(orderNumber, deadline, shared -> requestTrack(orderNumber, timeout, shared)));
+    }
+
+    // one call as the backend sees it, shared by the coalesced callers, with the latest of their deadlines
+    private Mono<Track> requestTrack(String orderNumber, Duration timeout, Deadline deadline) {
+        return metrics.timed(circuitBreaker.execute(() ->
+            hedger.execute(timeout, () -> attemptTrack(orderNumber, timeout, deadline)).timeout(timeout)));
+    }
+
+    // hedging may send two attempts of the same call
+    private Mono<Track> attemptTrack(String orderNumber, Duration timeout, Deadline deadline) {
+        return limiter.execute(deadline, () -> getTrackStatus(orderNumber)
+            .map(status -> new Track(orderNumber, Optional.of(status)))
+            .timeout(timeout)
+            .onErrorResume(BackendErrors::isNotFound, e -> Mono.empty()));
+    }
+
     private Mono<Status> getTrackStatus(String orderNumber) {
         return client.get()
             .uri(configProperties.getTrackStatusUrl(), orderNumber)
@@ -47,10 +96,11 @@ public class DefaultTrackClient implements TrackClient {
 
     private Mono<Track> getFallbackTrackMono(String orderNumber) {
         return Mono.just(getFallbackTrack(orderNumber))
+            .doOnNext(t -> metrics.fallback())
             .doOnNext(track -> log.debug("Falling back on empty track"));
     }
 
-    private Track getFallbackTrack(String orderNumber) {
+    Track getFallbackTrack(String orderNumber) {
         return new Track(orderNumber, Optional.empty());
     }
 
@@ -1,9 +1,13 @@
 package com.reactive.api.track;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.reactive.api.cache.CachedValue;
+import com.reactive.api.cache.Fallback;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import lombok.With;
 
 import java.util.Optional;
 
@@ -11,8 +15,31 @@ import java.util.Optional;
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
-public class Track {
+public class Track implements CachedValue<Track> {
     private String orderNumber;
     private Optional<Status> status;
 
+    /**
+     * Epoch millis at which the value was written to the cache. Not set for values that never went through the cache,
+     * nor for negative cache entries.
+     */
+    @With
+    private Long cachedAt;
+
+    /**
+     * Why the value is a fallback cached in place of an answer, which decides how long it stays cached. Not set for the
+     * answers of the backend.
+     */
+    @With
+    private Fallback fallback;
+
+    public Track(String orderNumber, Optional<Status> status) {
+        this(orderNumber, status, null, null);
+    }
+
+    @Override
+    @JsonIgnore
+    public boolean isEmpty() {
+        return status == null || status.isEmpty();
+    }
 }
@@ -1,9 +1,19 @@
 package com.reactive.api.track;
 
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+
 public interface TrackClient {
 
     Mono<Track> getTrack(String orderNumber);
 
+    /**
+     * Resolves several keys at once. Implementations backed by a cache override this to batch their lookups.
+     */
+    default Flux<Track> getTrack(List<String> orderNumbers) {
+        return Flux.fromIterable(orderNumbers).flatMap(orderNumber -> getTrack(orderNumber));
+    }
+
 }
@@ -0,0 +1,60 @@
+package com.reactive.api.track;
+
+import com.reactive.api.cache.Fallback;
+import com.reactive.api.cache.VersionedRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.nio.ByteBuffer;
+import java.util.Optional;
+
+/**
+ * Binary Redis codec of {@link Track}.
+ * <p>
+ * Version 1 layout: version byte, order number (length-prefixed UTF-8), status ordinal ({@code -1} when empty).
+ * Version 2 inserts the cache timestamp (epoch millis, {@code 0} when unknown) right after the version byte, and
+ * version 3 the {@link Fallback} ordinal ({@code -1} for an answer) right after the timestamp. {@link Status} constants
+ * must only ever be appended.
+ */
+public class TrackRedisSerializer extends VersionedRedisSerializer<Track> {
+
+    private static final byte VERSION_1 = 1;
+    private static final byte VERSION_2 = 2;
+    private static final byte VERSION_3 = 3;
+
+    private static final byte NO_STATUS = -1;
+
+    private static final Status[] STATUSES = Status.values();
+
+    public TrackRedisSerializer(RedisSerializer<Track> jsonSerializer, boolean writeBinary) {
+        super(jsonSerializer, writeBinary);
+    }
+
+    @Override
+    protected byte[] encode(Track track) {
+        Optional<Status> status = track.getStatus() == null ? Optional.empty() : track.getStatus();
+
+        ByteBuffer buffer = ByteBuffer.allocate(1 + Long.BYTES + 1 + sizeOf(track.getOrderNumber()) + 1)
+            .put(VERSION_3);
+        putTimestamp(buffer, track.getCachedAt());
+        putFallback(buffer, track.getFallback());
+        putString(buffer, track.getOrderNumber());
+        buffer.put(status.map(s -> (byte) s.ordinal()).orElse(NO_STATUS));
+
+        return buffer.array();
+    }
+
+    @Override
+    protected Track decode(byte version, ByteBuffer buffer) {
+        if (version != VERSION_1 && version != VERSION_2 && version != VERSION_3) {
+            throw unsupportedVersion(version);
+        }
+
+        Long cachedAt = version >= VERSION_2 ? getTimestamp(buffer) : null;
+        Fallback fallback = version >= VERSION_3 ? getFallback(buffer) : null;
+        String orderNumber = getString(buffer);
+        byte ordinal = buffer.get();
+        Optional<Status> status = ordinal == NO_STATUS ? Optional.empty() : Optional.of(STATUSES[ordinal]);
+
+        return new Track(orderNumber, status, cachedAt, fallback);
+    }
+}
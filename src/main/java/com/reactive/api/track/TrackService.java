@@ -1,12 +1,16 @@
 package com.reactive.api.track;
 
-import reactor.core.publisher.Mono;
+import reactor.core.publisher.Flux;
 
 import java.util.List;
-import java.util.Map;
-import java.util.Optional;
 
 public interface TrackService {
-    Mono<Map<String, Optional<Status>>> getTrack(List<String> pricingCountryCodes);
+
+    /**
+     * Emits the results one by one, as soon as each of them is available. Keys the backend has nothing for (or could not
+     * answer in time) are emitted with an empty value. Keys cut by the request deadline are not emitted: the
+     * aggregation lists them in {@code AggregationResult.unresolved}.
+     */
+    Flux<Track> streamTrack(List<String> trackOrderNumbers);
 
 }
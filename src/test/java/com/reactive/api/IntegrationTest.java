@@ -2,18 +2,32 @@ package com.reactive.api;
 
 
 import com.reactive.api.aggregation.Aggregation;
+import com.reactive.api.aggregation.AggregationEvent;
+import com.reactive.api.client.Deadline;
 import com.reactive.api.config.ConfigProperties;
+import com.reactive.api.standin.LatencyDistribution;
+import com.reactive.api.standin.StandIns;
+import com.reactive.api.standin.StubBackend;
 import com.reactive.api.util.TestUtil;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
 import org.springframework.test.web.reactive.server.WebTestClient;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
 import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 @AutoConfigureWebTestClient(timeout = "PT2M")
@@ -25,6 +39,11 @@ class IntegrationTest {
     @Autowired
     private ConfigProperties properties;
 
+    @DynamicPropertySource
+    static void standIns(DynamicPropertyRegistry registry) {
+        StandIns.register(registry);
+    }
+
     @Test
     void whenRequestHasNoParams_expectNoData() {
         Aggregation aggregation = requestAggregation(null, null, null);
@@ -94,6 +113,109 @@ class IntegrationTest {
         );
     }
 
+    @Test
+    void whenStreamIsRequested_expectEntriesFollowedByCompletionMarker() {
+        String orderNumbers = TestUtil.generateOrderNumbers(3);
+        String countryCodes = TestUtil.getCountryCodes(3);
+
+        List<AggregationEvent> events = webTestClient.get()
+            .uri(properties.getBaseUrl() + properties.getStreamUrl(), orderNumbers, orderNumbers, countryCodes)
+            .accept(MediaType.APPLICATION_NDJSON)
+            .exchange()
+            .expectStatus().isOk()
+            .returnResult(AggregationEvent.class)
+            .getResponseBody()
+            .collectList()
+            .block();
+
+        assertAll(
+            () -> assertNotNull(events),
+            () -> assertFalse(events.isEmpty()),
+            () -> assertEquals(AggregationEvent.Type.COMPLETE, events.get(events.size() - 1).getType()),
+            () -> assertTrue(events.size() > 1)
+        );
+    }
+
+    @Test
+    void whenRequestTimeoutIsNotPositive_expectBadRequest() {
+        webTestClient.get()
+            .uri(getAggregationUrl(), null, null, TestUtil.getCountryCodes(3))
+            .header(Deadline.HEADER, "0")
+            .exchange()
+            .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void whenSomeKeysAreMalformed_expectBadRequestListingThem() {
+        webTestClient.get()
+            .uri(getAggregationUrl(), "109347263,10934726a", "109347263", "NL,NLD")
+            .exchange()
+            .expectStatus().isBadRequest()
+            .expectBody()
+            .jsonPath("$.malformed.shipments").value(keys -> assertEquals(List.of("10934726a"), keys))
+            .jsonPath("$.malformed.pricing").value(keys -> assertEquals(List.of("NLD"), keys))
+            .jsonPath("$.malformed.track").doesNotExist();
+    }
+
+    @Test
+    void whenSomeStreamedKeysAreMalformed_expectBadRequestListingThem() {
+        webTestClient.get()
+            .uri(properties.getBaseUrl() + properties.getStreamUrl(), null, "109347263,10934726a", null)
+            .accept(MediaType.APPLICATION_NDJSON)
+            .exchange()
+            .expectStatus().isBadRequest()
+            .expectBody()
+            .jsonPath("$.malformed.track").value(keys -> assertEquals(List.of("10934726a"), keys));
+    }
+
+    @Test
+    void whenBackendIsSlowerThanRequestTimeout_expectPendingKeysListedAsUnresolved() {
+        assumeTrue(StandIns.backend().isPresent(), "needs the backend stand-in to slow it down");
+        StubBackend backend = StandIns.backend().get();
+
+        // keys never requested before, so none of them is cached
+        long key = System.currentTimeMillis() * 1000;
+        String shipmentsOrderNumbers = key + "," + (key + 1);
+        String trackOrderNumbers = String.valueOf(key + 2);
+
+        backend.latency(LatencyDistribution.fixed(Duration.ofSeconds(2)));
+        try {
+            Aggregation aggregation = webTestClient.get()
+                .uri(getAggregationUrl(), shipmentsOrderNumbers, trackOrderNumbers, null)
+                .header(Deadline.HEADER, "1000")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(Aggregation.class)
+                .returnResult()
+                .getResponseBody();
+
+            assertAll(
+                () -> assertNotNull(aggregation),
+                () -> assertTrue(aggregation.getShipments().isEmpty()),
+                () -> assertTrue(aggregation.getTrack().isEmpty()),
+                () -> assertEquals(Set.of("shipments", "track"), aggregation.getUnresolved().keySet()),
+                () -> assertEquals(Set.of(String.valueOf(key), String.valueOf(key + 1)),
+                    Set.copyOf(aggregation.getUnresolved().get("shipments"))),
+                () -> assertEquals(List.of(trackOrderNumbers), aggregation.getUnresolved().get("track"))
+            );
+        } finally {
+            backend.latency(StandIns.backendLatency());
+        }
+    }
+
+    @Test
+    void whenResultIsComplete_expectNoUnresolvedSection() {
+        String orderNumbers = TestUtil.generateOrderNumbers(3);
+
+        webTestClient.get()
+            .uri(getAggregationUrl(), orderNumbers, orderNumbers, TestUtil.getCountryCodes(3))
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("$.track").isNotEmpty()
+            .jsonPath("$.unresolved").doesNotExist();
+    }
+
     private Aggregation requestAggregation(String shipmentsOrderNumbers, String trackOrderNumbers, String pricingCountryCodes) {
         Aggregation aggregation = webTestClient.get()
             .uri(getAggregationUrl(), shipmentsOrderNumbers, trackOrderNumbers, pricingCountryCodes)
@@ -3,101 +3,150 @@ package com.reactive.api;
 
 import com.reactive.api.aggregation.Aggregation;
 import com.reactive.api.config.ConfigProperties;
+import com.reactive.api.load.LoadReport;
+import com.reactive.api.load.OpenModelLoadGenerator;
+import com.reactive.api.standin.StandIns;
+import com.reactive.api.standin.StubBackend;
 import com.reactive.api.util.TestUtil;
+import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.context.SpringBootTest;
-import org.springframework.test.web.reactive.server.WebTestClient;
-import org.springframework.util.StopWatch;
-
-import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.IntStream;
-
-import static org.junit.jupiter.api.Assertions.assertNotNull;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.util.DefaultUriBuilderFactory;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
-@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
-@AutoConfigureWebTestClient(timeout = "PT2M")
+// the debug logs of the tests would take a share of the CPU the requests are measured on
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = "logging.level.com.reactive.api=INFO")
+@Tag("load")
+@Slf4j
 class SLATest {
-    private double aggregationSLA;
 
-    private Map<Integer, Double> requestDurationMonitor = new ConcurrentHashMap<>();
+    @LocalServerPort
+    private int port;
+
+    // the arrival rate, in requests per second
+    @Value("${load-test.rate}")
+    private int rate;
+
+    @Value("${load-test.requests}")
+    private int numberOfRequests;
+
+    // sent before the measured ones, to fill the caches and let the JIT compile the hot paths
+    @Value("${load-test.warm-up-requests}")
+    private int warmUpRequests;
 
-    private String aggregationUrl;
+    @Value("${load-test.max-p99}")
+    private Duration maxP99;
+
+    @Value("${load-test.max-p999:#{null}}")
+    private Optional<Duration> maxP999;
+
+    // the share of the arrival rate that must be served, the rest may be shed by the admission control
+    @Value("${load-test.min-goodput}")
+    private double minGoodput;
 
     @Autowired
-    private WebTestClient webTestClient;
+    private WebClient.Builder webClientBuilder;
 
     @Autowired
     private ConfigProperties properties;
 
+    private WebClient webClient;
+
+    @DynamicPropertySource
+    static void standIns(DynamicPropertyRegistry registry) {
+        StandIns.register(registry);
+    }
+
     @BeforeEach
     public void prepare() {
-        // the SLA of the aggregation API in millis
-        aggregationSLA = Long.valueOf(properties.getSla().toMillis()).doubleValue();
-        requestDurationMonitor.clear();
-        aggregationUrl = properties.getBaseUrl() + properties.getUrl();
+        // a pool of its own, large enough that the client never queues the requests the generator sends
+        ConnectionProvider connections = ConnectionProvider.builder("load-test")
+            .maxConnections(numberOfRequests)
+            .pendingAcquireMaxCount(-1)
+            .build();
+
+        // the commas separating the keys are left as they are, or the URI gets too long for the server
+        DefaultUriBuilderFactory uriBuilderFactory = new DefaultUriBuilderFactory("http://localhost:" + port + "/");
+        uriBuilderFactory.setEncodingMode(DefaultUriBuilderFactory.EncodingMode.URI_COMPONENT);
+
+        webClient = webClientBuilder
+            .uriBuilderFactory(uriBuilderFactory)
+            .clientConnector(new ReactorClientHttpConnector(HttpClient.create(connections)))
+            .build();
     }
 
     @Test
-    @DisplayName("Aggregation should respect the SLA for the 99th percentile")
+    @DisplayName("Aggregation should respect the SLA for the 99th percentile of the requests it admits")
     void aggregationSLA() {
-
-        int numberOfRequests = 1000;
-
         String countryCodes = TestUtil.getAllCountryCodes(); // 249 codes
         String orderNumbers = TestUtil.generateOrderNumbers(300);
 
-        IntStream.rangeClosed(1, numberOfRequests)
-            // number of threads = number of CPU cores - 1
-            .parallel()
-            .forEach(requestNumber -> {
-
-                StopWatch stopWatch = startNewStopWatch();
-
-                Aggregation aggregation = webTestClient.get()
-                    .uri(aggregationUrl, orderNumbers, orderNumbers, countryCodes)
-                    .exchange()
-                    .expectStatus().isOk()
-                    .expectBody(Aggregation.class)
-                    .returnResult()
-                    .getResponseBody();
-
-                double requestDuration = getDurationInMilliSeconds(stopWatch);
-                requestDurationMonitor.put(requestNumber, requestDuration);
-
-                assertNotNull(aggregation);
-            });
-
-        Double durationFor99thPercentile = getDurationFor99thPercentile(requestDurationMonitor, numberOfRequests);
-
-        //assert that 99% of the total number of requests take less than 5s
-        assertTrue(durationFor99thPercentile < aggregationSLA,
-            "99th percentile duration was: %s".formatted(durationFor99thPercentile));
+        Supplier<Mono<Aggregation>> aggregation = () -> webClient.get()
+            .uri(properties.getUrl(), orderNumbers, orderNumbers, countryCodes)
+            .retrieve()
+            .bodyToMono(Aggregation.class)
+            .timeout(properties.getSla().multipliedBy(2));
+        Supplier<Mono<?>> request = aggregation::get;
+
+        fillCaches(aggregation);
+        log.info("Warm-up: {}", new OpenModelLoadGenerator(rate, warmUpRequests).run(request, SLATest::isShed));
+        StandIns.backend().ifPresent(StubBackend::reset);
+
+        LoadReport report = new OpenModelLoadGenerator(rate, numberOfRequests).run(request, SLATest::isShed);
+        log.info("Load test at {} req/s: {}", rate, report);
+        reportBackendAmplification(numberOfRequests, 249 + 300 + 300);
+
+        assertEquals(0, report.errors(), "Failed requests: " + report);
+        assertTrue(report.goodput() >= rate * minGoodput, "Goodput below " + minGoodput * rate + " req/s: " + report);
+        assertTrue(report.p99().compareTo(maxP99) <= 0, "99th percentile above " + maxP99.toMillis() + "ms: " + report);
+        maxP999.ifPresent(max ->
+            assertTrue(report.p999().compareTo(max) <= 0, "99.9th percentile above " + max.toMillis() + "ms: " + report));
     }
 
-    private Double getDurationFor99thPercentile(Map<Integer, Double> requestDurationMonitor, double numberOfRequests) {
-        List<Double> sortedDurations = requestDurationMonitor.values().stream().sorted().toList();
-
-        int ninetyNinePercentOfNumberOfReq = (int) Math.round(numberOfRequests * 0.99);
-        int indexOf99thPercentile = ninetyNinePercentOfNumberOfReq - 1;
-
-        return sortedDurations.get(indexOf99thPercentile);
+    // on a cold JVM, aggregations sent at the full rate may all be cut at the deadline before they resolve their keys:
+    // the warm-up would then neither fill the caches nor compile the path of the cached keys, and the measured run would
+    // pay for both. The caches are filled one aggregation at a time before the warm-up instead.
+    private void fillCaches(Supplier<Mono<Aggregation>> aggregation) {
+        for (int i = 0; i < warmUpRequests; i++) {
+            Aggregation result = aggregation.get().onErrorResume(e -> Mono.empty()).block();
+            if (result != null && result.getUnresolved().isEmpty()) {
+                return;
+            }
+        }
+
+        log.warn("The caches are still not filled after the warm-up, the load test starts with cache misses");
     }
 
-    private StopWatch startNewStopWatch() {
-        StopWatch batchStopWatch = new StopWatch();
-        batchStopWatch.start();
-        return batchStopWatch;
+    // rejected by the admission control, see AggregationAdmission
+    private static boolean isShed(Throwable e) {
+        return e instanceof WebClientResponseException.TooManyRequests
+            || e instanceof WebClientResponseException.ServiceUnavailable;
     }
 
-    private double getDurationInMilliSeconds(StopWatch requestStopWatch) {
-        requestStopWatch.stop();
-        return requestStopWatch.getTotalTimeMillis();
+    // backend calls made per key requested, lower is better
+    private void reportBackendAmplification(int numberOfRequests, int keysPerRequest) {
+        StandIns.backend().ifPresent(backend -> log.info("Backend amplification: %.4f calls per key requested (%d calls)"
+            .formatted((double) backend.totalCalls() / ((long) numberOfRequests * keysPerRequest), backend.totalCalls())));
     }
 }
@@ -0,0 +1,92 @@
+package com.reactive.api.aggregation;
+
+import com.reactive.api.client.Deadline;
+import com.reactive.api.config.ConfigProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AggregationAdmissionTest {
+
+    private final ConfigProperties properties = new ConfigProperties();
+
+    private final AggregationPlan plan = new AggregationPlan(Optional.of(List.of("1")), Optional.empty(), Optional.empty());
+
+    @Test
+    void whenTooManyAggregationsAreInFlight_expectTooManyRequestsUntilOneCompletes() {
+        properties.getAdmission().setMaxConcurrent(1);
+        AggregationAdmission admission = new AggregationAdmission(properties, new SimpleMeterRegistry());
+
+        Disposable running = admission.execute(plan, Deadline.after(Duration.ofSeconds(5)), Mono::never).subscribe();
+        AdmissionRejectedException rejected = assertThrows(AdmissionRejectedException.class,
+            () -> admission.execute(plan, Deadline.after(Duration.ofSeconds(5)), () -> Mono.just("result")).block());
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, rejected.getStatus());
+        assertEquals(Duration.ofSeconds(1), rejected.getRetryAfter());
+
+        running.dispose();
+        assertEquals("result", admission.execute(plan, Deadline.after(Duration.ofSeconds(5)), () -> Mono.just("result")).block());
+    }
+
+    @Test
+    void whenStreamedAggregationIsInFlight_expectItToCountUntilItsLastEntry() {
+        properties.getAdmission().setMaxConcurrent(1);
+        AggregationAdmission admission = new AggregationAdmission(properties, new SimpleMeterRegistry());
+        Sinks.Many<String> entries = Sinks.many().unicast().onBackpressureBuffer();
+
+        admission.executeStream(plan, Deadline.after(Duration.ofSeconds(5)), entries::asFlux).subscribe();
+        entries.tryEmitNext("entry");
+        AdmissionRejectedException rejected = assertThrows(AdmissionRejectedException.class,
+            () -> admission.executeStream(plan, Deadline.after(Duration.ofSeconds(5)), () -> Flux.just("entry")).blockLast());
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, rejected.getStatus());
+
+        entries.tryEmitComplete();
+        assertEquals("entry", admission.executeStream(plan, Deadline.after(Duration.ofSeconds(5)), () -> Flux.just("entry")).blockLast());
+    }
+
+    @Test
+    void whenAggregationIsPredictedToMissItsDeadline_expectServiceUnavailable() {
+        AggregationAdmission admission = new AggregationAdmission(properties, new SimpleMeterRegistry());
+
+        // alone, an aggregation takes about 200ms
+        admission.execute(plan, Deadline.after(Duration.ofSeconds(5)), () -> Mono.delay(Duration.ofMillis(200))).block();
+
+        // with one already in flight, the next one is the second and should take about 400ms
+        Disposable running = admission.execute(plan, Deadline.after(Duration.ofSeconds(5)), Mono::never).subscribe();
+        AdmissionRejectedException rejected = assertThrows(AdmissionRejectedException.class,
+            () -> admission.execute(plan, Deadline.after(Duration.ofMillis(100)), () -> Mono.just("result")).block());
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, rejected.getStatus());
+        assertEquals("result", admission.execute(plan, Deadline.after(Duration.ofSeconds(5)), () -> Mono.just("result")).block());
+        running.dispose();
+    }
+
+    @Test
+    void whenPredictionOnlyMissesBecauseOfTheLoad_expectOneAggregationAdmittedAtATimeToProbeIt() {
+        AggregationAdmission admission = new AggregationAdmission(properties, new SimpleMeterRegistry());
+        admission.execute(plan, Deadline.after(Duration.ofSeconds(5)), () -> Mono.delay(Duration.ofMillis(200))).block();
+        Disposable running = admission.execute(plan, Deadline.after(Duration.ofSeconds(5)), Mono::never).subscribe();
+
+        // alone it would take about 200ms, the second in flight about 400ms
+        Disposable probe = admission.execute(plan, Deadline.after(Duration.ofMillis(300)), Mono::never).subscribe();
+        AdmissionRejectedException rejected = assertThrows(AdmissionRejectedException.class,
+            () -> admission.execute(plan, Deadline.after(Duration.ofMillis(300)), () -> Mono.just("result")).block());
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, rejected.getStatus());
+
+        probe.dispose();
+        assertEquals("result", admission.execute(plan, Deadline.after(Duration.ofMillis(300)), () -> Mono.just("result")).block());
+        running.dispose();
+    }
+}
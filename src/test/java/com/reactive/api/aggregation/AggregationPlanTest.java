@@ -0,0 +1,47 @@
+package com.reactive.api.aggregation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AggregationPlanTest {
+
+    @Test
+    void whenKeysAreRepeatedOrMalformed_expectEachCanonicalKeyOnce() {
+        AggregationPlan plan = new AggregationPlan(
+            Optional.of(List.of("109347263", " 109347263", "10934726a")),
+            Optional.empty(),
+            Optional.of(List.of("NL", "NL", "nl", "CN", "NLD", "")));
+
+        assertEquals(List.of("109347263"), plan.getShipmentsOrderNumbers());
+        assertEquals(List.of(), plan.getTrackOrderNumbers());
+        assertEquals(List.of("NL", "CN"), plan.getPricingCountryCodes());
+    }
+
+    @Test
+    void whenSomeKeysAreMalformed_expectThemListedPerSection() {
+        AggregationPlan plan = new AggregationPlan(
+            Optional.of(List.of("109347263", "10934726a", "10934726a")),
+            Optional.of(List.of("109347263", "123456789012345678901")),
+            Optional.of(List.of("NL", " nld ", "")));
+
+        assertEquals(Map.of("shipments", List.of("10934726a"), "track", List.of("123456789012345678901"),
+            "pricing", List.of("NLD")), plan.getMalformedKeys());
+        assertEquals(List.of("109347263"), plan.getShipmentsOrderNumbers());
+        assertEquals(List.of("109347263"), plan.getTrackOrderNumbers());
+        assertEquals(List.of("NL"), plan.getPricingCountryCodes());
+    }
+
+    @Test
+    void whenAllKeysAreWellFormed_expectNoMalformedKeys() {
+        AggregationPlan plan = new AggregationPlan(Optional.of(List.of("109347263")), Optional.empty(),
+            Optional.of(List.of("NL")));
+
+        assertTrue(plan.getMalformedKeys().isEmpty());
+    }
+}
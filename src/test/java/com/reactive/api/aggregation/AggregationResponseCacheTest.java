@@ -0,0 +1,119 @@
+package com.reactive.api.aggregation;
+
+import com.reactive.api.cache.LocalCache;
+import com.reactive.api.config.ConfigProperties;
+import com.reactive.api.config.JacksonConfiguration;
+import com.reactive.api.track.Status;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AggregationResponseCacheTest {
+
+    private final ConfigProperties properties = new ConfigProperties();
+
+    private final AggregationResponseCache cache =
+        new AggregationResponseCache(properties, new JacksonConfiguration().objectMapper(), new SimpleMeterRegistry());
+
+    private final AtomicInteger aggregations = new AtomicInteger();
+
+    @Test
+    void whenSameKeysAreRequestedInAnotherOrder_expectCachedResponse() {
+        AggregationResponseCache.CachedResponse first = get(plan(List.of("1", "2"), List.of("nl", "CN")), Map.of());
+        AggregationResponseCache.CachedResponse second = get(plan(List.of("2", "1", "1"), List.of("CN", "NL")), Map.of());
+
+        assertEquals(1, aggregations.get());
+        assertNotNull(first.etag());
+        assertEquals(first, second);
+    }
+
+    @Test
+    void whenResponseIsPartial_expectNextRequestToAggregateAgain() {
+        Map<String, List<String>> unresolved = Map.of(AggregationCollector.PRICING, List.of("CN"));
+
+        AggregationResponseCache.CachedResponse first = get(plan(List.of("1"), List.of("CN")), unresolved);
+        AggregationResponseCache.CachedResponse second = get(plan(List.of("1"), List.of("CN")), unresolved);
+
+        assertEquals(2, aggregations.get());
+        assertEquals(first.etag(), second.etag());
+    }
+
+    @Test
+    void whenSharedAggregationIsPartial_expectOtherRequestToAggregateOnItsOwn() {
+        AggregationPlan plan = plan(List.of("1"), List.of("CN"));
+        Map<String, List<String>> unresolved = Map.of(AggregationCollector.PRICING, List.of("CN"));
+        Sinks.One<AggregationResult> partial = Sinks.one();
+
+        Mono<AggregationResponseCache.CachedResponse> first = cache.get(plan, true, partial::asMono);
+        Mono<AggregationResponseCache.CachedResponse> second = cache.get(plan, true, () -> aggregate(Map.of()));
+
+        StepVerifier.create(Flux.merge(first, second).map(AggregationResponseCache.CachedResponse::etag).distinct())
+            .then(() -> partial.tryEmitValue(result(unresolved)))
+            .expectNextCount(2)
+            .verifyComplete();
+        assertEquals(1, aggregations.get());
+    }
+
+    @Test
+    void whenSharedAggregationIsRejected_expectOtherRequestToAggregateOnItsOwn() {
+        AggregationPlan plan = plan(List.of("1"), List.of("CN"));
+        Sinks.One<AggregationResult> rejected = Sinks.one();
+
+        Mono<AggregationResponseCache.CachedResponse> first = cache.get(plan, true, rejected::asMono);
+        Mono<AggregationResponseCache.CachedResponse> second = cache.get(plan, true, () -> aggregate(Map.of()));
+
+        StepVerifier.create(Flux.merge(first.onErrorResume(e -> Mono.empty()), second))
+            .then(() -> rejected.tryEmitError(new IllegalStateException("rejected")))
+            .expectNextCount(1)
+            .verifyComplete();
+        assertEquals(1, aggregations.get());
+    }
+
+    // Prometheus needs the meters of a name to have the same tag keys, or it drops those registered last
+    @Test
+    void whenScrapedWithTheLocalCacheTier_expectBothCachesPublished() {
+        PrometheusMeterRegistry registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        new LocalCache<String>("track", new ConfigProperties.Local(), new ConfigProperties.LocalSpec(), registry);
+        new AggregationResponseCache(properties, new JacksonConfiguration().objectMapper(), registry);
+
+        List<String> sizes = registry.scrape().lines().filter(line -> line.startsWith("cache_size{")).toList();
+
+        assertTrue(sizes.stream().anyMatch(line -> line.contains("cache=\"track\"") && line.contains("tier=\"local\"")),
+            sizes.toString());
+        assertTrue(sizes.stream().anyMatch(line -> line.contains("cache=\"aggregation-response\"")
+            && line.contains("tier=\"response\"")), sizes.toString());
+    }
+
+    private AggregationResponseCache.CachedResponse get(AggregationPlan plan, Map<String, List<String>> unresolved) {
+        return cache.get(plan, true, () -> aggregate(unresolved)).block();
+    }
+
+    private Mono<AggregationResult> aggregate(Map<String, List<String>> unresolved) {
+        return Mono.fromSupplier(() -> {
+            aggregations.incrementAndGet();
+            return result(unresolved);
+        });
+    }
+
+    private static AggregationResult result(Map<String, List<String>> unresolved) {
+        return new AggregationResult(Map.of(), Map.of("1", Status.NEW), Map.of("NL", 1.5), unresolved);
+    }
+
+    private static AggregationPlan plan(List<String> orderNumbers, List<String> countryCodes) {
+        return new AggregationPlan(Optional.empty(), Optional.of(orderNumbers), Optional.of(countryCodes));
+    }
+}
@@ -0,0 +1,63 @@
+package com.reactive.api.aggregation;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.reactive.api.config.JacksonConfiguration;
+import com.reactive.api.shipment.Product;
+import com.reactive.api.track.Status;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalDouble;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AggregationResultEncoderTest {
+
+    private final ObjectMapper mapper = new JacksonConfiguration().objectMapper();
+
+    private final AggregationResultEncoder encoder = new AggregationResultEncoder(mapper.getFactory());
+
+    @Test
+    void whenResultIsEncoded_expectSameJsonAsJacksonForTheAggregation() throws Exception {
+        Map<String, List<Product>> shipments = new HashMap<>();
+        shipments.put("109347263", List.of(Product.BOX, Product.PALLET));
+        shipments.put("109347264", null);
+
+        AggregationResult result = new AggregationResult(
+            shipments,
+            Map.of("109347263", Status.DELIVERED),
+            Map.of("NL", 14.242090605778, "CN", 0.5),
+            Map.of(AggregationCollector.TRACK, List.of("109347264")));
+
+        Aggregation aggregation = Aggregation.builder()
+            .shipments(Map.of("109347263", Optional.of(List.of(Product.BOX, Product.PALLET))))
+            .track(Map.of("109347263", Optional.of(Status.DELIVERED)))
+            .pricing(Map.of("NL", OptionalDouble.of(14.242090605778), "CN", OptionalDouble.of(0.5)))
+            .unresolved(Map.of(AggregationCollector.TRACK, List.of("109347264")))
+            .build();
+
+        assertEquals(mapper.readTree(mapper.writeValueAsString(aggregation)), mapper.readTree(encode(result)));
+    }
+
+    @Test
+    void whenResultIsComplete_expectNoUnresolvedSection() throws Exception {
+        AggregationResult result = new AggregationResult(Map.of(), Map.of(), Map.of(), Map.of());
+
+        assertEquals("{\"shipments\":{},\"track\":{},\"pricing\":{}}", encode(result));
+    }
+
+    private String encode(AggregationResult result) {
+        DataBuffer buffer = encoder.encodeValue(result, DefaultDataBufferFactory.sharedInstance,
+            ResolvableType.forClass(AggregationResult.class), MediaType.APPLICATION_JSON, Map.of());
+
+        return buffer.toString(StandardCharsets.UTF_8);
+    }
+}
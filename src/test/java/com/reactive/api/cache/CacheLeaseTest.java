@@ -0,0 +1,144 @@
+package com.reactive.api.cache;
+
+import com.reactive.api.client.Deadline;
+import com.reactive.api.client.DeadlineExceededException;
+import com.reactive.api.config.ConfigProperties;
+import com.reactive.api.standin.StubRedis;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisOperations;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CacheLeaseTest {
+
+    private static final String LEASE_KEY = "lease:key";
+
+    private static final Predicate<String> CACHED = value -> true;
+
+    private final StubRedis redis = new StubRedis();
+
+    private final ConfigProperties properties = new ConfigProperties();
+
+    private LettuceConnectionFactory connectionFactory;
+
+    private ReactiveRedisOperations<String, String> operations;
+
+    @BeforeEach
+    void connect() {
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("localhost", redis.port()));
+        connectionFactory.afterPropertiesSet();
+        operations = new ReactiveRedisTemplate<>(connectionFactory, RedisSerializationContext.string());
+
+        ConfigProperties.Cache cache = new ConfigProperties.Cache();
+        cache.getLease().setEnabled(true);
+        properties.setCache(cache);
+    }
+
+    @AfterEach
+    void disconnect() {
+        connectionFactory.destroy();
+        redis.stop();
+    }
+
+    @Test
+    void whenTwoNodesMissTheSameKey_expectOnlyTheLeaseHolderToFetchIt() {
+        CacheLease<String> firstNode = new CacheLease<>("test", operations, properties, new SimpleMeterRegistry());
+        CacheLease<String> secondNode = new CacheLease<>("test", operations, properties, new SimpleMeterRegistry());
+        AtomicInteger fetches = new AtomicInteger();
+
+        Mono<String> first = firstNode.execute("key", () -> fetchAndCache(fetches, Duration.ofMillis(200)), CACHED);
+        Mono<String> second = secondNode.execute("key", () -> fetchAndCache(fetches, Duration.ZERO), CACHED);
+
+        assertEquals("value", first.zipWith(Mono.delay(Duration.ofMillis(50)).then(second), (a, b) -> b).block());
+        assertEquals(1, fetches.get());
+        assertTrue(operations.hasKey(LEASE_KEY).block(), "the lease of a cached value expires on its own");
+    }
+
+    @Test
+    void whenLeaseHolderEndsWithoutCaching_expectTheLeaseTakenOverBeforeTheWaitTimeout() {
+        properties.getCacheLease().setWaitTimeout(Duration.ofSeconds(5));
+        CacheLease<String> firstNode = new CacheLease<>("test", operations, properties, new SimpleMeterRegistry());
+        CacheLease<String> secondNode = new CacheLease<>("test", operations, properties, new SimpleMeterRegistry());
+        AtomicInteger fetches = new AtomicInteger();
+
+        // e.g. a fallback value answering a rejected call
+        Mono<String> first = firstNode.execute("key", () -> Mono.delay(Duration.ofMillis(200)).thenReturn("fallback"),
+            value -> false);
+        Mono<String> second = secondNode.execute("key", () -> fetchAndCache(fetches, Duration.ZERO), CACHED);
+
+        long start = System.nanoTime();
+        assertEquals("value", first.zipWith(Mono.delay(Duration.ofMillis(50)).then(second), (a, b) -> b).block());
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).compareTo(Duration.ofSeconds(1)) < 0);
+        assertEquals(1, fetches.get());
+    }
+
+    @Test
+    void whenLeaseWasTakenByAnotherNodeMeanwhile_expectItLeftInPlace() {
+        CacheLease<String> node = new CacheLease<>("test", operations, properties, new SimpleMeterRegistry());
+
+        // the lease expired during the fetch, and another node took it
+        assertNull(node.execute("key", () -> operations.opsForValue().set(LEASE_KEY, "other node").then(Mono.empty()),
+            CACHED).block());
+
+        assertEquals("other node", operations.opsForValue().get(LEASE_KEY).delayElement(Duration.ofMillis(100)).block());
+    }
+
+    @Test
+    void whenLeaseHolderDoesNotCacheTheValueInTime_expectTheOtherNodeToFetchIt() {
+        properties.getCacheLease().setWaitTimeout(Duration.ofMillis(100));
+        CacheLease<String> firstNode = new CacheLease<>("test", operations, properties, new SimpleMeterRegistry());
+        CacheLease<String> secondNode = new CacheLease<>("test", operations, properties, new SimpleMeterRegistry());
+        AtomicInteger fetches = new AtomicInteger();
+
+        // the value is said to be cached, but it doesn't show up in Redis
+        firstNode.execute("key", () -> Mono.just("never cached"), CACHED).block();
+
+        assertEquals("value", secondNode.execute("key", () -> fetchAndCache(fetches, Duration.ZERO), CACHED).block());
+        assertEquals(1, fetches.get());
+    }
+
+    @Test
+    void whenCallersWithDifferentDeadlinesShareTheAttempt_expectEachCutAtItsOwnDeadline() {
+        CacheLease<String> node = new CacheLease<>("test", operations, properties, new SimpleMeterRegistry());
+        AtomicInteger fetches = new AtomicInteger();
+
+        // the fetch leaves the key unresolved when cut by the deadline it runs with, like the tiered cache does
+        Mono<String> fetch = Deadline.within(Duration.ofSeconds(2), properties.getDeadlineSafetyMargin(),
+                deadline -> fetchAndCache(fetches, Duration.ofMillis(500)))
+            .onErrorResume(DeadlineExceededException.class, e -> Mono.empty());
+
+        // the short deadline caller comes first, so it starts the attempt the other one joins
+        CompletableFuture<String> shortDeadline = node.execute("key", () -> fetch, CACHED)
+            .contextWrite(Deadline.after(Duration.ofMillis(400))::addTo)
+            .toFuture();
+        CompletableFuture<String> longDeadline = node.execute("key", () -> fetch, CACHED)
+            .contextWrite(Deadline.after(Duration.ofSeconds(5))::addTo)
+            .toFuture();
+
+        assertNull(shortDeadline.join());
+        assertEquals("value", longDeadline.join());
+        assertEquals(1, fetches.get());
+    }
+
+    private Mono<String> fetchAndCache(AtomicInteger fetches, Duration latency) {
+        return Mono.fromRunnable(fetches::incrementAndGet)
+            .then(Mono.delay(latency))
+            .then(operations.opsForValue().set("key", "value"))
+            .thenReturn("value");
+    }
+}
@@ -0,0 +1,108 @@
+package com.reactive.api.cache;
+
+import com.reactive.api.config.ConfigProperties;
+import com.reactive.api.standin.StubRedis;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisOperations;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class InvalidationTrackerTest {
+
+    private final StubRedis redis = new StubRedis(true);
+
+    private LettuceConnectionFactory connectionFactory;
+
+    private ReactiveRedisOperations<String, String> operations;
+
+    private LocalCache<String> localCache;
+
+    private InvalidationTracker tracker;
+
+    @BeforeEach
+    void connect() throws InterruptedException {
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("localhost", redis.port()));
+        connectionFactory.afterPropertiesSet();
+        operations = new ReactiveRedisTemplate<>(connectionFactory, RedisSerializationContext.string());
+
+        ConfigProperties.LocalSpec spec = new ConfigProperties.LocalSpec();
+        spec.setExpiration(Duration.ofMillis(50));
+        localCache = new LocalCache<>("test", new ConfigProperties.Local(), spec, new SimpleMeterRegistry());
+
+        tracker = new InvalidationTracker(connectionFactory);
+        tracker.track("test_", localCache);
+        tracker.start();
+        awaitTracking();
+    }
+
+    @AfterEach
+    void disconnect() {
+        tracker.stop();
+        connectionFactory.destroy();
+        redis.stop();
+    }
+
+    @Test
+    void whenKeyChangesInRedis_expectLocalValueEvicted() throws InterruptedException {
+        localCache.put("test_a", "1", Duration.ofMinutes(1));
+        localCache.put("other_a", "1", Duration.ofMinutes(1));
+
+        operations.opsForValue().set("test_a", "2").block();
+        operations.opsForValue().set("other_a", "2").block();
+        for (int i = 0; i < 100 && localCache.get("test_a") != null; i++) {
+            Thread.sleep(10);
+        }
+
+        assertNull(localCache.get("test_a"));
+        assertEquals("1", localCache.get("other_a"));
+    }
+
+    @Test
+    void whenThisInstanceWritesTheKey_expectLocalValueKept() throws InterruptedException {
+        ConfigProperties properties = new ConfigProperties();
+        properties.setCache(new ConfigProperties.Cache());
+        properties.getCacheWriteBehind().setEnabled(false);
+        WriteBehindQueue<String> writeBehind = new WriteBehindQueue<>("test", operations, properties,
+            new SimpleMeterRegistry(), Optional.of(tracker));
+
+        localCache.put("test_a", "2", Duration.ofMinutes(1));
+        writeBehind.write("test_a", "2", Duration.ofMinutes(1)).block();
+
+        // the change of another key made afterwards is pushed after any invalidation of the write
+        awaitTracking();
+
+        assertEquals("2", localCache.get("test_a"));
+        assertEquals("2", operations.opsForValue().get("test_a").block());
+    }
+
+    @Test
+    void whenTracked_expectLocalValueToOutliveTheTierExpiration() throws InterruptedException {
+        localCache.put("test_a", "1", Duration.ofMinutes(1));
+        Thread.sleep(100);
+
+        assertEquals("1", localCache.get("test_a"));
+    }
+
+    // the tracking is turned on asynchronously, after which every change of a tracked key is pushed
+    private void awaitTracking() throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            localCache.put("test_probe", "1", Duration.ofMinutes(1));
+            operations.opsForValue().set("test_probe", "1").block();
+            Thread.sleep(10);
+            if (localCache.get("test_probe") == null) {
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.reactive.api.cache;
+
+import com.reactive.api.config.ConfigProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class LocalCacheTest {
+
+    private final LocalCache<String> localCache = new LocalCache<>("test", new ConfigProperties.Local(),
+        new ConfigProperties.LocalSpec(), new SimpleMeterRegistry());
+
+    @Test
+    void whenOtherKeyIsInvalidatedDuringRead_expectValueCached() {
+        Object read = localCache.startRead("a");
+        localCache.invalidate("b");
+        localCache.put("a", "1", Duration.ofMinutes(1), read);
+
+        assertEquals("1", localCache.get("a"));
+    }
+
+    @Test
+    void whenKeyIsInvalidatedDuringRead_expectValueNotCached() {
+        Object read = localCache.startRead("a");
+        localCache.invalidate("a");
+        localCache.put("a", "1", Duration.ofMinutes(1), read);
+
+        assertNull(localCache.get("a"));
+    }
+
+    @Test
+    void whenKeyIsCachedAnewDuringRead_expectValueReadNotToReplaceIt() {
+        Object read = localCache.startRead("a");
+        localCache.put("a", "2", Duration.ofMinutes(1));
+        localCache.put("a", "1", Duration.ofMinutes(1), read);
+
+        assertEquals("2", localCache.get("a"));
+    }
+}
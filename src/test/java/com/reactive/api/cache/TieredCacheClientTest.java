@@ -0,0 +1,235 @@
+package com.reactive.api.cache;
+
+import com.reactive.api.config.ConfigProperties;
+import com.reactive.api.config.JacksonConfiguration;
+import com.reactive.api.standin.StubRedis;
+import com.reactive.api.track.Status;
+import com.reactive.api.track.Track;
+import com.reactive.api.track.TrackRedisSerializer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisOperations;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TieredCacheClientTest {
+
+    private final StubRedis redis = new StubRedis();
+
+    private final ConfigProperties properties = new ConfigProperties();
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+
+    private final AtomicInteger backendCalls = new AtomicInteger();
+
+    private volatile Function<String, Mono<Track>> backend = orderNumber -> Mono.empty();
+
+    private LettuceConnectionFactory connectionFactory;
+
+    private ReactiveRedisOperations<String, Track> operations;
+
+    private TieredCacheClient<Track> client;
+
+    @BeforeEach
+    void connect() {
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("localhost", redis.port()));
+        connectionFactory.afterPropertiesSet();
+
+        TrackRedisSerializer serializer = new TrackRedisSerializer(
+            new Jackson2JsonRedisSerializer<>(new JacksonConfiguration().objectMapper(), Track.class), true);
+        operations = new ReactiveRedisTemplate<>(connectionFactory,
+            RedisSerializationContext.<String, Track>newSerializationContext(new StringRedisSerializer())
+                .value(serializer)
+                .build());
+
+        ConfigProperties.Cache cache = new ConfigProperties.Cache();
+        cache.setExpiration(Duration.ofMinutes(30));
+        cache.getRefresh().setStaleWindow(Duration.ofMinutes(10));
+        cache.getWriteBehind().setEnabled(false);
+        properties.setCache(cache);
+
+        client = new TieredCacheClient<>("track", "track_", properties.getLocalCache().getTrack(), operations,
+            this::fetch, orderNumber -> new Track(orderNumber, Optional.empty()), properties, registry, Optional.empty());
+    }
+
+    @AfterEach
+    void disconnect() {
+        client.flushWrites();
+        connectionFactory.destroy();
+        redis.stop();
+    }
+
+    @Test
+    void whenLocalHitIsStale_expectRedisLookupOfTheOtherKeysNotToWaitForItsRefresh() {
+        cache("track_1", new Track("1", Optional.of(Status.NEW)).withCachedAt(ago(Duration.ofMinutes(31))));
+        cache("track_2", new Track("2", Optional.of(Status.DELIVERED)).withCachedAt(ago(Duration.ZERO)));
+
+        // the stale value is served and kept locally when the backend cannot refresh it
+        backend = orderNumber -> Mono.error(new TimeoutException());
+        StepVerifier.create(client.get("1"))
+            .expectNextMatches(track -> track.getStatus().equals(Optional.of(Status.NEW)))
+            .verifyComplete();
+
+        backend = orderNumber -> Mono.delay(Duration.ofSeconds(1)).thenReturn(new Track(orderNumber, Optional.of(Status.COLLECTED)));
+        StepVerifier.create(client.get(List.of("1", "2")))
+            .expectNextMatches(track -> track.getOrderNumber().equals("2"))
+            .expectNextMatches(track -> track.getOrderNumber().equals("1"))
+            .verifyComplete();
+    }
+
+    @Test
+    void whenValueIsPastAheadFraction_expectItServedWhileOneBackgroundCallRefreshesIt() {
+        // the expiration is 30m and the ahead fraction 0.8, so the refresh starts after 24m
+        cache("track_5", new Track("5", Optional.of(Status.NEW)).withCachedAt(ago(Duration.ofMinutes(25))));
+        Sinks.One<Track> answer = Sinks.one();
+        backend = orderNumber -> answer.asMono();
+
+        StepVerifier.create(Flux.range(0, 5).flatMap(i -> client.get("5")))
+            .expectNextCount(5)
+            .verifyComplete();
+        StepVerifier.create(client.get(List.of("5", "5")))
+            .expectNextMatches(track -> track.getStatus().equals(Optional.of(Status.NEW)))
+            .expectNextMatches(track -> track.getStatus().equals(Optional.of(Status.NEW)))
+            .verifyComplete();
+
+        answer.tryEmitValue(new Track("5", Optional.of(Status.COLLECTED)));
+        Track refreshed = Mono.defer(() -> operations.opsForValue().get("track_5"))
+            .filter(track -> track.getStatus().equals(Optional.of(Status.COLLECTED)))
+            .repeatWhenEmpty(attempts -> attempts.delayElements(Duration.ofMillis(10)))
+            .block(Duration.ofSeconds(2));
+
+        assertNotNull(refreshed.getCachedAt());
+        assertEquals(1, backendCalls.get());
+    }
+
+    @Test
+    void whenBackendHasNothing_expectEmptyFallbackCachedForEmptyExpiration() {
+        backend = orderNumber -> Mono.empty();
+
+        StepVerifier.create(client.get("3"))
+            .expectNextMatches(track -> track.getStatus().isEmpty())
+            .verifyComplete();
+
+        assertEquals(Fallback.EMPTY, operations.opsForValue().get("track_3").block().getFallback());
+        assertExpiresWithin("track_3", properties.getNegativeCache().getEmptyExpiration());
+    }
+
+    @Test
+    void whenBackendTimesOut_expectTimeoutFallbackCachedForTimeoutExpiration() {
+        backend = orderNumber -> Mono.error(new TimeoutException());
+
+        StepVerifier.create(client.get("4"))
+            .expectNextMatches(track -> track.getStatus().isEmpty())
+            .verifyComplete();
+
+        assertEquals(Fallback.TIMEOUT, operations.opsForValue().get("track_4").block().getFallback());
+        assertExpiresWithin("track_4", properties.getNegativeCache().getTimeoutExpiration());
+    }
+
+    @Test
+    void whenValueIsStale_expectItRefreshedBeforeBeingServed() {
+        cache("track_6", new Track("6", Optional.of(Status.NEW)).withCachedAt(ago(Duration.ofMinutes(31))));
+        backend = orderNumber -> Mono.just(new Track(orderNumber, Optional.of(Status.COLLECTED)));
+
+        StepVerifier.create(client.get("6"))
+            .expectNextMatches(track -> track.getStatus().equals(Optional.of(Status.COLLECTED)))
+            .verifyComplete();
+
+        Track refreshed = operations.opsForValue().get("track_6").block();
+        assertEquals(Optional.of(Status.COLLECTED), refreshed.getStatus());
+        assertNotNull(refreshed.getCachedAt());
+    }
+
+    @Test
+    void whenBackendIsSlowerThanStaleTimeout_expectStaleValueServedAndRefreshedInTheBackground() {
+        cache("track_9", new Track("9", Optional.of(Status.NEW)).withCachedAt(ago(Duration.ofMinutes(31))));
+        backend = orderNumber -> Mono.delay(Duration.ofMillis(500)).thenReturn(new Track(orderNumber, Optional.of(Status.COLLECTED)));
+
+        StepVerifier.create(client.get("9"))
+            .expectNextMatches(track -> track.getStatus().equals(Optional.of(Status.NEW)))
+            .expectComplete()
+            .verify(Duration.ofMillis(400));
+
+        Track refreshed = Mono.defer(() -> operations.opsForValue().get("track_9"))
+            .filter(track -> track.getStatus().equals(Optional.of(Status.COLLECTED)))
+            .repeatWhenEmpty(attempts -> attempts.delayElements(Duration.ofMillis(10)))
+            .block(Duration.ofSeconds(2));
+
+        assertNotNull(refreshed.getCachedAt());
+        assertEquals(1, backendCalls.get());
+    }
+
+    @Test
+    void whenBackendHasNothingForStaleValue_expectEmptyFallbackCached() {
+        cache("track_10", new Track("10", Optional.of(Status.NEW)).withCachedAt(ago(Duration.ofMinutes(31))));
+        backend = orderNumber -> Mono.empty();
+
+        StepVerifier.create(client.get("10"))
+            .expectNextMatches(track -> track.getStatus().isEmpty())
+            .verifyComplete();
+
+        assertEquals(Fallback.EMPTY, operations.opsForValue().get("track_10").block().getFallback());
+        assertExpiresWithin("track_10", properties.getNegativeCache().getEmptyExpiration());
+    }
+
+    @Test
+    void whenRedisHoldsTimeoutFallback_expectLocalCopyToExpireWithTheTimeoutExpiration() throws InterruptedException {
+        properties.getNegativeCache().setTimeoutExpiration(Duration.ofMillis(100));
+        cache("track_7", new Track("7", Optional.empty()).withFallback(Fallback.TIMEOUT));
+        cache("track_8", new Track("8", Optional.of(Status.NEW)).withCachedAt(ago(Duration.ZERO)));
+
+        StepVerifier.create(client.get(List.of("7", "8")))
+            .expectNextCount(2)
+            .verifyComplete();
+
+        cache("track_7", new Track("7", Optional.of(Status.DELIVERED)).withCachedAt(ago(Duration.ZERO)));
+        cache("track_8", new Track("8", Optional.of(Status.DELIVERED)).withCachedAt(ago(Duration.ZERO)));
+        Thread.sleep(200);
+
+        // the answer is still served from the local tier, the negative entry is read from Redis again
+        assertEquals(Optional.of(Status.DELIVERED), client.get("7").block().getStatus());
+        assertEquals(Optional.of(Status.NEW), client.get("8").block().getStatus());
+    }
+
+    private void assertExpiresWithin(String key, Duration expiration) {
+        Duration ttl = operations.getExpire(key).block();
+
+        assertTrue(ttl.compareTo(expiration) <= 0 && ttl.compareTo(expiration.minusSeconds(5)) > 0,
+            "expected " + key + " to expire within " + expiration + " but was " + ttl);
+    }
+
+    private void cache(String key, Track track) {
+        operations.opsForValue().set(key, track).block();
+    }
+
+    private static long ago(Duration age) {
+        return System.currentTimeMillis() - age.toMillis();
+    }
+
+    private Mono<Track> fetch(String orderNumber) {
+        backendCalls.incrementAndGet();
+        return Mono.defer(() -> backend.apply(orderNumber));
+    }
+}
@@ -0,0 +1,94 @@
+package com.reactive.api.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.reactive.api.config.JacksonConfiguration;
+import com.reactive.api.pricing.Pricing;
+import com.reactive.api.pricing.PricingRedisSerializer;
+import com.reactive.api.shipment.Product;
+import com.reactive.api.shipment.Shipment;
+import com.reactive.api.shipment.ShipmentRedisSerializer;
+import com.reactive.api.track.Status;
+import com.reactive.api.track.Track;
+import com.reactive.api.track.TrackRedisSerializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalDouble;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VersionedRedisSerializerTest {
+
+    private final ObjectMapper mapper = new JacksonConfiguration().objectMapper();
+
+    @Test
+    void whenPricingIsEncoded_expectSameValueDecoded() {
+        PricingRedisSerializer serializer = new PricingRedisSerializer(new Jackson2JsonRedisSerializer<>(mapper, Pricing.class), true);
+        Pricing pricing = new Pricing("NL", OptionalDouble.of(14.242090605778)).withCachedAt(System.currentTimeMillis());
+        Pricing empty = new Pricing("CN", OptionalDouble.empty()).withFallback(Fallback.TIMEOUT);
+
+        assertEquals(pricing, serializer.deserialize(serializer.serialize(pricing)));
+        assertEquals(empty, serializer.deserialize(serializer.serialize(empty)));
+    }
+
+    @Test
+    void whenShipmentIsEncoded_expectSameValueDecoded() {
+        ShipmentRedisSerializer serializer = new ShipmentRedisSerializer(new Jackson2JsonRedisSerializer<>(mapper, Shipment.class), true);
+        Shipment shipment = new Shipment("109347263", Optional.of(List.of(Product.BOX, Product.BOX, Product.PALLET, Product.ENVELOPE, Product.PALLET)));
+        Shipment empty = new Shipment("109347264", Optional.empty()).withFallback(Fallback.EMPTY);
+
+        assertEquals(shipment, serializer.deserialize(serializer.serialize(shipment)));
+        assertEquals(empty, serializer.deserialize(serializer.serialize(empty)));
+    }
+
+    @Test
+    void whenTrackIsEncoded_expectSameValueDecoded() {
+        TrackRedisSerializer serializer = new TrackRedisSerializer(new Jackson2JsonRedisSerializer<>(mapper, Track.class), true);
+        Track track = new Track("109347263", Optional.of(Status.DELIVERED));
+        Track empty = new Track("109347264", Optional.empty()).withFallback(Fallback.EMPTY);
+
+        assertEquals(track, serializer.deserialize(serializer.serialize(track)));
+        assertEquals(empty, serializer.deserialize(serializer.serialize(empty)));
+    }
+
+    @Test
+    void whenValueWasWrittenInVersion2_expectItDecodedWithoutFallbackKind() {
+        TrackRedisSerializer serializer = new TrackRedisSerializer(new Jackson2JsonRedisSerializer<>(mapper, Track.class), true);
+        byte[] orderNumber = "109347264".getBytes(StandardCharsets.UTF_8);
+        byte[] version2 = ByteBuffer.allocate(1 + Long.BYTES + Short.BYTES + orderNumber.length + 1)
+            .put((byte) 2)
+            .putLong(0L)
+            .putShort((short) orderNumber.length)
+            .put(orderNumber)
+            .put((byte) -1)
+            .array();
+
+        assertEquals(new Track("109347264", Optional.empty()), serializer.deserialize(version2));
+    }
+
+    @Test
+    void whenJsonValueHasUnknownField_expectItIgnored() {
+        Jackson2JsonRedisSerializer<Track> json = new Jackson2JsonRedisSerializer<>(mapper, Track.class);
+        byte[] newer = "{\"orderNumber\":\"109347263\",\"status\":\"DELIVERED\",\"cachedAt\":1,\"addedLater\":true}"
+            .getBytes(StandardCharsets.UTF_8);
+
+        assertEquals(new Track("109347263", Optional.of(Status.DELIVERED)).withCachedAt(1L), json.deserialize(newer));
+    }
+
+    @Test
+    void whenValueWasWrittenAsJson_expectBinaryReaderToFallBack() {
+        Jackson2JsonRedisSerializer<Shipment> json = new Jackson2JsonRedisSerializer<>(mapper, Shipment.class);
+        ShipmentRedisSerializer serializer = new ShipmentRedisSerializer(json, true);
+        Shipment shipment = new Shipment("109347263", Optional.of(List.of(Product.BOX, Product.PALLET)));
+
+        byte[] jsonBytes = json.serialize(shipment);
+
+        assertEquals(shipment, serializer.deserialize(jsonBytes));
+        assertTrue(serializer.serialize(shipment).length < jsonBytes.length);
+    }
+}
@@ -0,0 +1,107 @@
+package com.reactive.api.cache;
+
+import com.reactive.api.config.ConfigProperties;
+import com.reactive.api.standin.StubRedis;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisOperations;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WriteBehindQueueTest {
+
+    private final StubRedis redis = new StubRedis();
+
+    private final ConfigProperties properties = new ConfigProperties();
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+
+    private LettuceConnectionFactory connectionFactory;
+
+    private ReactiveRedisOperations<String, String> operations;
+
+    @BeforeEach
+    void connect() {
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("localhost", redis.port()));
+        connectionFactory.afterPropertiesSet();
+        operations = new ReactiveRedisTemplate<>(connectionFactory, RedisSerializationContext.string());
+
+        ConfigProperties.Cache cache = new ConfigProperties.Cache();
+        cache.getWriteBehind().setBatchSize(3);
+        cache.getWriteBehind().setFlushInterval(Duration.ofHours(1));
+        properties.setCache(cache);
+    }
+
+    @AfterEach
+    void disconnect() {
+        connectionFactory.destroy();
+        redis.stop();
+    }
+
+    @Test
+    void whenBatchIsFull_expectItsWritesSentTogether() throws InterruptedException {
+        WriteBehindQueue<String> queue = new WriteBehindQueue<>("test", operations, properties, registry);
+
+        queue.write("a", "1", Duration.ofMinutes(1)).block();
+        queue.write("b", "2", Duration.ofMinutes(1)).block();
+        assertFalse(operations.hasKey("a").block());
+
+        queue.write("c", "3", Duration.ofMinutes(1)).block();
+        awaitWritten(3);
+
+        assertEquals("1", operations.opsForValue().get("a").block());
+        assertEquals("3", operations.opsForValue().get("c").block());
+        assertTrue(operations.getExpire("b").block().compareTo(Duration.ZERO) > 0);
+        assertEquals(3, redis.commands("SET"));
+    }
+
+    @Test
+    void whenBatchIsSent_expectItsWritesNotToWaitForEachOther() throws InterruptedException {
+        redis.setLatency(Duration.ofMillis(20));
+        WriteBehindQueue<String> queue = new WriteBehindQueue<>("test", operations, properties, registry);
+
+        Mono.when(queue.write("a", "1", Duration.ofMinutes(1)),
+                queue.write("b", "2", Duration.ofMinutes(1)),
+                queue.write("c", "3", Duration.ofMinutes(1)))
+            .block();
+        awaitWritten(3);
+
+        // the second and third SET reached Redis before the reply to the first one
+        assertEquals(3, redis.commands("SET"));
+        assertEquals(2, redis.pipelined());
+    }
+
+    @Test
+    void whenQueueIsFull_expectNewWritesDropped() {
+        properties.getCacheWriteBehind().setMaxPending(2);
+        WriteBehindQueue<String> queue = new WriteBehindQueue<>("test", operations, properties, registry);
+
+        Mono.when(queue.write("a", "1", Duration.ofMinutes(1)),
+                queue.write("b", "2", Duration.ofMinutes(1)),
+                queue.write("c", "3", Duration.ofMinutes(1)))
+            .block();
+        queue.close(Duration.ofSeconds(1));
+
+        assertEquals(1, registry.get("cache.writes").tag("result", "dropped").counter().count());
+        assertEquals(2, registry.get("cache.writes").tag("result", "written").counter().count());
+        assertFalse(operations.hasKey("c").block());
+    }
+
+    private void awaitWritten(int writes) throws InterruptedException {
+        for (int i = 0; i < 100 && registry.get("cache.writes").tag("result", "written").counter().count() < writes; i++) {
+            Thread.sleep(10);
+        }
+    }
+}
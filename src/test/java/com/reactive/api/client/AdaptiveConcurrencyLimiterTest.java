@@ -0,0 +1,91 @@
+package com.reactive.api.client;
+
+import com.reactive.api.config.ConfigProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private final Deadline deadline = Deadline.after(Duration.ofSeconds(5));
+
+    private final ConfigProperties properties = new ConfigProperties();
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void whenLimitIsReached_expectCallsToQueueThenBeRejected() {
+        properties.getConcurrency().setMaxQueueSize(1);
+        AdaptiveConcurrencyLimiter limiter = limiter(1, 1);
+
+        Sinks.One<String> first = Sinks.one();
+        StepVerifier.create(limiter.execute(deadline, first::asMono))
+            .then(() -> StepVerifier.create(limiter.execute(deadline, () -> Mono.just("queued")))
+                .then(() -> StepVerifier.create(limiter.execute(deadline, () -> Mono.just("rejected")))
+                    .verifyError(CallRejectedException.class))
+                .then(() -> first.tryEmitValue("first"))
+                .expectNext("queued")
+                .verifyComplete())
+            .expectNext("first")
+            .verifyComplete();
+    }
+
+    @Test
+    void whenDeadlineOfQueuedCallPasses_expectCallShed() {
+        AdaptiveConcurrencyLimiter limiter = limiter(1, 1);
+
+        Sinks.One<String> first = Sinks.one();
+        StepVerifier.create(limiter.execute(deadline, first::asMono))
+            .then(() -> StepVerifier.create(limiter.execute(Deadline.after(Duration.ofMillis(100)), () -> Mono.just("queued")))
+                .expectError(DeadlineExceededException.class)
+                .verify(Duration.ofSeconds(1)))
+            .then(() -> first.tryEmitValue("first"))
+            .expectNext("first")
+            .verifyComplete();
+    }
+
+    @Test
+    void whenLatencyStaysFlat_expectLimitToGrow() {
+        AdaptiveConcurrencyLimiter limiter = limiter(10, 1);
+
+        callsAtTheLimit(limiter, 10, Duration.ofMillis(20));
+
+        assertTrue(limit() > 10, "limit " + limit());
+    }
+
+    @Test
+    void whenLatencyRises_expectLimitToShrink() {
+        AdaptiveConcurrencyLimiter limiter = limiter(10, 1);
+
+        callsAtTheLimit(limiter, 10, Duration.ofMillis(10));
+        double limitAtLowLatency = limit();
+        callsAtTheLimit(limiter, 10, Duration.ofMillis(400));
+
+        assertTrue(limit() < limitAtLowLatency, "limit " + limit() + " not below " + limitAtLowLatency);
+    }
+
+    private AdaptiveConcurrencyLimiter limiter(int initialLimit, int minLimit) {
+        properties.getConcurrency().setInitialLimit(initialLimit);
+        properties.getConcurrency().setMinLimit(minLimit);
+        return new AdaptiveConcurrencyLimiter("pricing", properties, registry);
+    }
+
+    // the latency only moves the limit while the calls in flight are close to it
+    private void callsAtTheLimit(AdaptiveConcurrencyLimiter limiter, int calls, Duration latency) {
+        Flux.range(0, calls)
+            .flatMap(i -> limiter.execute(deadline, () -> Mono.delay(latency)))
+            .blockLast(Duration.ofSeconds(5));
+    }
+
+    private double limit() {
+        return registry.get("backend.concurrency.limit").gauge().value();
+    }
+}
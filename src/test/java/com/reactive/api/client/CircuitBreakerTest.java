@@ -0,0 +1,44 @@
+package com.reactive.api.client;
+
+import com.reactive.api.config.ConfigProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CircuitBreakerTest {
+
+    @Test
+    void whenBackendKeepsTimingOut_expectCircuitToOpenThenCloseAfterProbes() throws InterruptedException {
+        ConfigProperties.Breaker properties = new ConfigProperties.Breaker();
+        properties.setMinimumCalls(4);
+        properties.setOpenDuration(Duration.ofMillis(100));
+        properties.setHalfOpenCalls(1);
+        CircuitBreaker circuitBreaker = new CircuitBreaker("track", properties, new SimpleMeterRegistry());
+        AtomicInteger calls = new AtomicInteger();
+
+        for (int i = 0; i < 4; i++) {
+            StepVerifier.create(circuitBreaker.execute(() -> Mono.fromCallable(calls::incrementAndGet)
+                    .then(Mono.error(new TimeoutException()))))
+                .verifyError(TimeoutException.class);
+        }
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        StepVerifier.create(circuitBreaker.execute(() -> Mono.fromCallable(calls::incrementAndGet)))
+            .verifyError(CallRejectedException.class);
+        assertEquals(4, calls.get());
+
+        Thread.sleep(150);
+
+        StepVerifier.create(circuitBreaker.execute(() -> Mono.just("DELIVERED")))
+            .expectNext("DELIVERED")
+            .verifyComplete();
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+}
@@ -0,0 +1,49 @@
+package com.reactive.api.client;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class DeadlineTest {
+
+    @Test
+    void whenDeadlineIsCloserThanTimeout_expectWaitCutAtWhatIsLeftOfIt() {
+        Mono<Object> call = Deadline.within(Duration.ofSeconds(2), Duration.ofMillis(50), deadline -> Mono.never())
+            .contextWrite(Deadline.after(Duration.ofMillis(300))::addTo);
+
+        StepVerifier.create(call)
+            .expectError(DeadlineExceededException.class)
+            .verify(Duration.ofSeconds(1));
+    }
+
+    @Test
+    void whenDeadlineHasPassed_expectCallNotStarted() {
+        AtomicBoolean started = new AtomicBoolean();
+        Mono<String> call = Deadline.within(Duration.ofSeconds(2), Duration.ofMillis(50), deadline -> {
+                started.set(true);
+                return Mono.just("answer");
+            })
+            .contextWrite(Deadline.after(Duration.ofMillis(10))::addTo);
+
+        StepVerifier.create(call)
+            .expectError(DeadlineExceededException.class)
+            .verify();
+        assertFalse(started.get());
+    }
+
+    @Test
+    void whenSharedDeadlineIsPushedBack_expectExpirationToWaitForTheLaterOne() {
+        Deadline shared = Deadline.after(Duration.ofMillis(50)).copy();
+
+        StepVerifier.create(shared.expiration())
+            .then(() -> shared.extendTo(Deadline.after(Duration.ofMillis(300))))
+            .expectNoEvent(Duration.ofMillis(200))
+            .expectNextCount(1)
+            .verifyComplete();
+    }
+}
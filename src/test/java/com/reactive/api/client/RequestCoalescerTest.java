@@ -0,0 +1,88 @@
+package com.reactive.api.client;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RequestCoalescerTest {
+
+    private final RequestCoalescer<String, String> coalescer = new RequestCoalescer<>();
+
+    @Test
+    void whenSameKeyIsRequestedConcurrently_expectOneCall() {
+        AtomicInteger calls = new AtomicInteger();
+        Sinks.One<String> response = Sinks.one();
+
+        Mono<String> first = coalescer.execute("NL", () -> {
+            calls.incrementAndGet();
+            return response.asMono();
+        });
+        Mono<String> second = coalescer.execute("NL", () -> {
+            calls.incrementAndGet();
+            return response.asMono();
+        });
+
+        StepVerifier.create(Mono.zip(first, second))
+            .then(() -> response.tryEmitValue("14.24"))
+            .assertNext(tuple -> assertEquals(tuple.getT1(), tuple.getT2()))
+            .verifyComplete();
+
+        assertEquals(1, calls.get());
+        assertEquals(0, coalescer.inFlight());
+    }
+
+    @Test
+    void whenCallCompleted_expectNextCallerToTriggerNewCall() {
+        AtomicInteger calls = new AtomicInteger();
+
+        coalescer.execute("NL", () -> Mono.fromCallable(() -> "call-" + calls.incrementAndGet())).block();
+        String result = coalescer.execute("NL", () -> Mono.fromCallable(() -> "call-" + calls.incrementAndGet())).block();
+
+        assertEquals("call-2", result);
+    }
+
+    @Test
+    void whenAllCallersCancel_expectCallCancelled() {
+        AtomicBoolean cancelled = new AtomicBoolean();
+        Mono<String> call = coalescer.execute("NL", () -> Mono.<String>never().doOnCancel(() -> cancelled.set(true)));
+
+        Disposable first = call.subscribe();
+        Disposable second = call.subscribe();
+
+        first.dispose();
+        assertFalse(cancelled.get());
+
+        second.dispose();
+        assertTrue(cancelled.get());
+        assertEquals(0, coalescer.inFlight());
+    }
+
+    @Test
+    void whenCallerWithLaterDeadlineJoins_expectCallDeadlinePushedBack() {
+        AtomicReference<Deadline> shared = new AtomicReference<>();
+        Sinks.One<String> response = Sinks.one();
+
+        Disposable first = coalescer.execute("NL", Deadline.after(Duration.ofMillis(100)), deadline -> {
+            shared.set(deadline);
+            return response.asMono();
+        }).subscribe();
+        Disposable second = coalescer.execute("NL", Deadline.after(Duration.ofSeconds(10)), deadline -> response.asMono())
+            .subscribe();
+
+        assertTrue(shared.get().remaining().compareTo(Duration.ofSeconds(5)) > 0);
+
+        first.dispose();
+        second.dispose();
+    }
+}
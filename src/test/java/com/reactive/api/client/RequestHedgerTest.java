@@ -0,0 +1,39 @@
+package com.reactive.api.client;
+
+import com.reactive.api.config.ConfigProperties;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RequestHedgerTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    @Test
+    void whenCallStalls_expectHedgeToAnswer() {
+        ConfigProperties properties = new ConfigProperties();
+        properties.getHedging().setEnabled(true);
+        properties.getHedging().setBudget(1);
+        RequestHedger hedger = new RequestHedger(properties.getHedging(), new HedgeBudget(properties));
+
+        for (int i = 0; i < 100; i++) {
+            hedger.execute(TIMEOUT, () -> Mono.just("fast")).block();
+        }
+
+        AtomicInteger calls = new AtomicInteger();
+        Mono<String> stallingOnce = hedger.execute(TIMEOUT,
+            () -> calls.incrementAndGet() == 1 ? Mono.never() : Mono.just("hedged"));
+
+        StepVerifier.create(stallingOnce)
+            .expectNext("hedged")
+            .expectComplete()
+            .verify(Duration.ofSeconds(1));
+
+        assertEquals(2, calls.get());
+    }
+}
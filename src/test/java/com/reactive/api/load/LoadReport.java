@@ -0,0 +1,41 @@
+package com.reactive.api.load;
+
+import org.HdrHistogram.Histogram;
+
+import java.time.Duration;
+
+/**
+ * Outcome of a load test run: latency percentiles and goodput of the requests served, and the count of those that
+ * failed or were shed by the server. Only the requests served are in the percentiles, since a shed one is answered
+ * right away. The goodput is the number of requests served per second of the time they were sent over, so it matches
+ * the arrival rate when every request is served.
+ */
+public record LoadReport(Duration p50, Duration p90, Duration p99, Duration p999, Duration max,
+                         double goodput, long completed, long errors, long shed) {
+
+    static LoadReport of(Histogram latenciesMicros, Duration arrivals, long errors, long shed) {
+        long completed = latenciesMicros.getTotalCount();
+
+        return new LoadReport(
+            percentile(latenciesMicros, 50),
+            percentile(latenciesMicros, 90),
+            percentile(latenciesMicros, 99),
+            percentile(latenciesMicros, 99.9),
+            Duration.ofNanos(latenciesMicros.getMaxValue() * 1000),
+            completed / (arrivals.toNanos() / 1e9),
+            completed,
+            errors,
+            shed);
+    }
+
+    private static Duration percentile(Histogram latenciesMicros, double percentile) {
+        return Duration.ofNanos(latenciesMicros.getValueAtPercentile(percentile) * 1000);
+    }
+
+    @Override
+    public String toString() {
+        return "p50=%dms p90=%dms p99=%dms p99.9=%dms max=%dms goodput=%.1f req/s completed=%d errors=%d shed=%d".formatted(
+            p50.toMillis(), p90.toMillis(), p99.toMillis(), p999.toMillis(), max.toMillis(), goodput, completed, errors,
+            shed);
+    }
+}
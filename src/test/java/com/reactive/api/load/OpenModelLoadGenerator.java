@@ -0,0 +1,53 @@
+package com.reactive.api.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Open-model load generator: requests are sent at a constant arrival rate whether the previous ones completed or not,
+ * the way independent users send them.
+ * <p>
+ * Each latency is measured from the time the request was scheduled to be sent rather than from the time it actually
+ * was, so a stalled system is charged for the requests it held back instead of hiding them (no coordinated omission).
+ * The requests the server sheds are counted apart from the failed ones, since shedding is how it keeps the others
+ * within the SLA.
+ */
+public class OpenModelLoadGenerator {
+
+    private final int ratePerSecond;
+
+    private final int requests;
+
+    public OpenModelLoadGenerator(int ratePerSecond, int requests) {
+        this.ratePerSecond = ratePerSecond;
+        this.requests = requests;
+    }
+
+    public LoadReport run(Supplier<Mono<?>> request, Predicate<Throwable> isShed) {
+        long intervalNanos = 1_000_000_000L / ratePerSecond;
+        Histogram latenciesMicros = new ConcurrentHistogram(3);
+        AtomicLong errors = new AtomicLong();
+        AtomicLong shed = new AtomicLong();
+        long start = System.nanoTime();
+
+        Flux.interval(Duration.ZERO, Duration.ofNanos(intervalNanos))
+            .take(requests)
+            .flatMap(i -> {
+                long scheduledAt = start + i * intervalNanos;
+                return Mono.defer(request)
+                    .doOnSuccess(response -> latenciesMicros.recordValue((System.nanoTime() - scheduledAt) / 1000))
+                    .doOnError(e -> (isShed.test(e) ? shed : errors).incrementAndGet())
+                    .onErrorResume(e -> Mono.empty());
+            }, requests)
+            .blockLast();
+
+        return LoadReport.of(latenciesMicros, Duration.ofNanos(requests * intervalNanos), errors.get(), shed.get());
+    }
+}
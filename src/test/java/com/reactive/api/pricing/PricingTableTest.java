@@ -0,0 +1,42 @@
+package com.reactive.api.pricing;
+
+import com.reactive.api.config.ConfigProperties;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalDouble;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PricingTableTest {
+
+    @Test
+    void whenTableIsLoaded_expectPricesFromMemoryAndOnlyUnknownCodesResolvedByTheClient() {
+        AtomicInteger backendCalls = new AtomicInteger();
+        PricingTable table = new PricingTable(countryCode -> {
+            backendCalls.incrementAndGet();
+            return countryCode.equals("CN") ? Mono.empty() : Mono.just(new Pricing(countryCode, OptionalDouble.of(1.5)));
+        }, new ConfigProperties.PricingTable());
+
+        table.warmUp().block();
+        int loadCalls = backendCalls.get();
+
+        AtomicInteger clientCalls = new AtomicInteger();
+        PricingClient client = countryCode -> {
+            clientCalls.incrementAndGet();
+            return Mono.just(new Pricing(countryCode, OptionalDouble.of(9.0)));
+        };
+
+        Map<String, OptionalDouble> pricing = table.getPricing(List.of("NL", "CN", "XK"), client)
+            .collect(Collectors.toMap(Pricing::getCountryCode, Pricing::getPrice))
+            .block();
+
+        assertEquals(Map.of("NL", OptionalDouble.of(1.5), "CN", OptionalDouble.empty(), "XK", OptionalDouble.of(9.0)), pricing);
+        assertEquals(loadCalls, backendCalls.get());
+        assertEquals(1, clientCalls.get());
+    }
+}
@@ -0,0 +1,80 @@
+package com.reactive.api.standin;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.springframework.test.context.DynamicPropertyRegistry;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Stand-ins shared by all the test classes of a run, started on first use.
+ * <p>
+ * They replace the Backend Services API and Redis, so the tests run anywhere. Run the tests with
+ * {@code -Dstand-ins=false} to use the services started by runBackendServicesAndRedis.sh instead.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class StandIns {
+
+    private static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("stand-ins", "true"));
+
+    private static final long SEED = 42;
+
+    // a long-tailed latency, roughly like the Backend Services API
+    private static final LatencyDistribution BACKEND_LATENCY =
+        LatencyDistribution.logNormal(Duration.ofMillis(20), Duration.ofMillis(250));
+
+    private static StubBackend backend;
+
+    private static StubRedis redis;
+
+    /**
+     * Points the application at the stand-ins, for a {@code @DynamicPropertySource} method.
+     */
+    public static void register(DynamicPropertyRegistry registry) {
+        if (!ENABLED) {
+            return;
+        }
+
+        registry.add("aggregation.apis-port", () -> start().port());
+        registry.add("aggregation.cache.host", () -> "127.0.0.1");
+        registry.add("aggregation.cache.port", () -> String.valueOf(startRedis().port()));
+    }
+
+    /**
+     * Empty when the tests run against the real services.
+     */
+    public static Optional<StubBackend> backend() {
+        return ENABLED ? Optional.of(start()) : Optional.empty();
+    }
+
+    /**
+     * The latency the backend stand-in starts with, to restore once a test is done with another one.
+     */
+    public static LatencyDistribution backendLatency() {
+        return BACKEND_LATENCY;
+    }
+
+    public static Optional<StubRedis> redis() {
+        return ENABLED ? Optional.of(startRedis()) : Optional.empty();
+    }
+
+    // with a few failures, roughly like the Backend Services API
+    private static synchronized StubBackend start() {
+        if (backend == null) {
+            backend = new StubBackend(BACKEND_LATENCY, SEED)
+                .errorRate(0.01)
+                .timeoutRate(0.001);
+        }
+
+        return backend;
+    }
+
+    private static synchronized StubRedis startRedis() {
+        if (redis == null) {
+            redis = new StubRedis();
+        }
+
+        return redis;
+    }
+}
@@ -0,0 +1,158 @@
+package com.reactive.api.standin;
+
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.QueryStringDecoder;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+import reactor.netty.resources.LoopResources;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * In-JVM stand-in for the Backend Services API.
+ * <p>
+ * Serves the {@code shipment-products}, {@code track-status} and {@code pricing} contracts with deterministic values
+ * per key, after a latency drawn from a {@link LatencyDistribution}. A share of the calls can be answered with a 503,
+ * or never answered at all to simulate a timeout. Every call is counted per endpoint.
+ * <p>
+ * Like a backend running in a process of its own, it has its own event loop and latency timer, so that it doesn't take
+ * the threads of the service under test, e.g. the {@code Schedulers.parallel()} timers that cut the aggregations.
+ */
+public class StubBackend {
+
+    public static final String SHIPMENT_PRODUCTS = "/shipment-products";
+    public static final String TRACK_STATUS = "/track-status";
+    public static final String PRICING = "/pricing";
+
+    private static final List<String> PRODUCTS = List.of("ENVELOPE", "BOX", "PALLET");
+    private static final List<String> STATUSES = List.of("NEW", "IN_TRANSIT", "COLLECTING", "COLLECTED", "DELIVERING", "DELIVERED");
+
+    private final Map<String, AtomicLong> calls = new ConcurrentHashMap<>();
+
+    private final SplittableRandom random;
+
+    private volatile LatencyDistribution latency;
+
+    private volatile double errorRate;
+
+    private volatile double timeoutRate;
+
+    private final LoopResources loops = LoopResources.create("stub-backend", 1, true);
+
+    private final Scheduler timer = Schedulers.newSingle("stub-backend-timer", true);
+
+    private final DisposableServer server;
+
+    public StubBackend(LatencyDistribution latency, long seed) {
+        this.latency = latency;
+        this.random = new SplittableRandom(seed);
+        this.server = HttpServer.create()
+            .port(0)
+            .runOn(loops)
+            .route(routes -> routes
+                .get(SHIPMENT_PRODUCTS, (request, response) -> answer(SHIPMENT_PRODUCTS, "orderNumber", StubBackend::products, request, response))
+                .get(TRACK_STATUS, (request, response) -> answer(TRACK_STATUS, "orderNumber", StubBackend::status, request, response))
+                .get(PRICING, (request, response) -> answer(PRICING, "countryCode", StubBackend::price, request, response)))
+            .bindNow();
+    }
+
+    public int port() {
+        return server.port();
+    }
+
+    public StubBackend latency(LatencyDistribution latency) {
+        this.latency = latency;
+        return this;
+    }
+
+    /**
+     * Share of the calls answered with a 503.
+     */
+    public StubBackend errorRate(double errorRate) {
+        this.errorRate = errorRate;
+        return this;
+    }
+
+    /**
+     * Share of the calls never answered.
+     */
+    public StubBackend timeoutRate(double timeoutRate) {
+        this.timeoutRate = timeoutRate;
+        return this;
+    }
+
+    public long calls(String endpoint) {
+        return calls.getOrDefault(endpoint, new AtomicLong()).get();
+    }
+
+    public long totalCalls() {
+        return calls.values().stream().mapToLong(AtomicLong::get).sum();
+    }
+
+    public void reset() {
+        calls.clear();
+    }
+
+    public void stop() {
+        server.disposeNow();
+        loops.dispose();
+        timer.dispose();
+    }
+
+    private Publisher<Void> answer(String endpoint, String param, Function<String, String> body,
+                                   HttpServerRequest request, HttpServerResponse response) {
+        calls.computeIfAbsent(endpoint, e -> new AtomicLong()).incrementAndGet();
+
+        List<String> keys = new QueryStringDecoder(request.uri()).parameters().get(param);
+        if (keys == null || keys.isEmpty()) {
+            return response.status(HttpResponseStatus.BAD_REQUEST).send();
+        }
+
+        double outcome;
+        Duration delay;
+        synchronized (random) {
+            outcome = random.nextDouble();
+            delay = latency.sample(random);
+        }
+
+        if (outcome < timeoutRate) {
+            return Mono.never();
+        }
+
+        Mono<Void> answer = outcome < timeoutRate + errorRate
+            ? response.status(HttpResponseStatus.SERVICE_UNAVAILABLE).send().then()
+            : response.header("Content-Type", "application/json").sendString(Mono.just(body.apply(keys.get(0)))).then();
+
+        return Mono.delay(delay, timer).then(answer);
+    }
+
+    private static String products(String orderNumber) {
+        int seed = Math.abs(orderNumber.hashCode());
+        StringBuilder products = new StringBuilder("[");
+        for (int i = 0; i <= seed % 4; i++) {
+            products.append(i == 0 ? "" : ",").append('"').append(PRODUCTS.get((seed + i) % PRODUCTS.size())).append('"');
+        }
+
+        return products.append(']').toString();
+    }
+
+    private static String status(String orderNumber) {
+        return '"' + STATUSES.get(Math.abs(orderNumber.hashCode()) % STATUSES.size()) + '"';
+    }
+
+    private static String price(String countryCode) {
+        return String.valueOf(Math.abs(countryCode.hashCode()) % 10_000 / 100.0 + 1);
+    }
+}
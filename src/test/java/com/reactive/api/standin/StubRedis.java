@@ -0,0 +1,423 @@
+package com.reactive.api.standin;
+
+import com.reactive.api.cache.CacheLease;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process stand-in for Redis, speaking enough of the RESP2 protocol for the cache of the application.
+ * <p>
+ * Supports PING, GET, SET (with EX, PX, NX and XX), MGET, DEL, EXISTS, PTTL and FLUSHALL, and EVAL of the script
+ * releasing a cache lease, {@link CacheLease#RELEASE_SCRIPT}. Other commands, including the RESP3 handshake, are
+ * answered with an error, which makes Lettuce fall back to RESP2. Every command is counted.
+ * <p>
+ * When created with RESP3, the {@code HELLO 3} handshake is accepted, and so is {@code CLIENT TRACKING ON BCAST} with
+ * prefixes and {@code NOLOOP}: the keys set or deleted are then pushed as invalidations to the tracking connections,
+ * except to a {@code NOLOOP} one for its own changes.
+ * <p>
+ * Each command can be answered after a latency. The commands that arrive while replies to earlier ones are still
+ * pending are counted as pipelined.
+ */
+public class StubRedis {
+
+    private final Map<String, Entry> data = new ConcurrentHashMap<>();
+
+    private final Map<String, AtomicLong> commands = new ConcurrentHashMap<>();
+
+    private final AtomicLong pipelined = new AtomicLong();
+
+    private volatile Duration latency = Duration.ZERO;
+
+    private final boolean resp3;
+
+    private final Set<Connection> tracking = ConcurrentHashMap.newKeySet();
+
+    private final ServerSocket serverSocket;
+
+    private final ExecutorService connections = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "stub-redis");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public StubRedis() {
+        this(false);
+    }
+
+    public StubRedis(boolean resp3) {
+        this.resp3 = resp3;
+        try {
+            this.serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not start the Redis stand-in", e);
+        }
+        connections.execute(this::accept);
+    }
+
+    public int port() {
+        return serverSocket.getLocalPort();
+    }
+
+    public long commands(String command) {
+        return commands.getOrDefault(command, new AtomicLong()).get();
+    }
+
+    public long pipelined() {
+        return pipelined.get();
+    }
+
+    public void setLatency(Duration latency) {
+        this.latency = latency;
+    }
+
+    public void reset() {
+        data.clear();
+        commands.clear();
+        pipelined.set(0);
+    }
+
+    public void stop() {
+        try {
+            serverSocket.close();
+        } catch (IOException ignored) {
+            // already closed
+        }
+        connections.shutdownNow();
+    }
+
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                connections.execute(() -> serve(socket));
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        Connection connection = null;
+        try (socket;
+             InputStream in = new BufferedInputStream(socket.getInputStream());
+             OutputStream out = new BufferedOutputStream(socket.getOutputStream())) {
+
+            connection = new Connection(out);
+            boolean repliesPending = false;
+            while (true) {
+                List<byte[]> command = readCommand(in);
+                if (repliesPending) {
+                    pipelined.incrementAndGet();
+                }
+                sleep(latency);
+
+                // invalidations may be pushed to the connection from other ones
+                synchronized (out) {
+                    execute(command, connection);
+
+                    // replies to pipelined commands are flushed together
+                    repliesPending = in.available() > 0;
+                    if (!repliesPending) {
+                        out.flush();
+                    }
+                }
+            }
+        } catch (IOException | InterruptedException e) {
+            // connection closed by the client
+        } finally {
+            tracking.remove(connection);
+        }
+    }
+
+    private void execute(List<byte[]> args, Connection connection) throws IOException {
+        OutputStream out = connection.out;
+        String name = string(args.get(0)).toUpperCase(Locale.ROOT);
+        commands.computeIfAbsent(name, n -> new AtomicLong()).incrementAndGet();
+
+        switch (name) {
+            case "PING" -> simple(out, "PONG");
+            case "GET" -> bulk(out, get(string(args.get(1))));
+            case "MGET" -> {
+                array(out, args.size() - 1);
+                for (int i = 1; i < args.size(); i++) {
+                    bulk(out, get(string(args.get(i))));
+                }
+            }
+            case "SET" -> set(args, connection);
+            case "DEL" -> {
+                long deleted = 0;
+                for (int i = 1; i < args.size(); i++) {
+                    String key = string(args.get(i));
+                    if (data.remove(key) != null) {
+                        deleted++;
+                        invalidate(key, connection);
+                    }
+                }
+                integer(out, deleted);
+            }
+            case "EXISTS" -> {
+                long existing = 0;
+                for (int i = 1; i < args.size(); i++) {
+                    existing += get(string(args.get(i))) != null ? 1 : 0;
+                }
+                integer(out, existing);
+            }
+            case "PTTL" -> {
+                Entry entry = live(string(args.get(1)));
+                integer(out, entry == null ? -2 : entry.expiresAt == 0 ? -1 : entry.expiresAt - System.currentTimeMillis());
+            }
+            case "FLUSHALL", "FLUSHDB" -> {
+                data.clear();
+                invalidate(null, connection);
+                simple(out, "OK");
+            }
+            case "EVAL" -> eval(args, connection);
+            case "HELLO" -> hello(args, connection);
+            case "CLIENT" -> client(args, connection);
+            default -> error(out, "ERR unknown command '" + name + "'");
+        }
+    }
+
+    private void set(List<byte[]> args, Connection connection) throws IOException {
+        OutputStream out = connection.out;
+        String key = string(args.get(1));
+        long expiresAt = 0;
+        boolean onlyIfAbsent = false;
+        boolean onlyIfPresent = false;
+
+        for (int i = 3; i < args.size(); i++) {
+            switch (string(args.get(i)).toUpperCase(Locale.ROOT)) {
+                case "EX" -> expiresAt = System.currentTimeMillis() + Long.parseLong(string(args.get(++i))) * 1000;
+                case "PX" -> expiresAt = System.currentTimeMillis() + Long.parseLong(string(args.get(++i)));
+                case "NX" -> onlyIfAbsent = true;
+                case "XX" -> onlyIfPresent = true;
+                default -> {
+                    error(out, "ERR syntax error");
+                    return;
+                }
+            }
+        }
+
+        boolean present = live(key) != null;
+        if ((onlyIfAbsent && present) || (onlyIfPresent && !present)) {
+            bulk(out, null);
+            return;
+        }
+
+        data.put(key, new Entry(args.get(2), expiresAt));
+        invalidate(key, connection);
+        simple(out, "OK");
+    }
+
+    // deletes the key when it holds the value given
+    private void eval(List<byte[]> args, Connection connection) throws IOException {
+        if (!string(args.get(1)).equals(CacheLease.RELEASE_SCRIPT) || args.size() != 5) {
+            error(connection.out, "ERR unsupported script");
+            return;
+        }
+
+        String key = string(args.get(3));
+        Entry entry = live(key);
+        if (entry == null || !Arrays.equals(entry.value, args.get(4)) || !data.remove(key, entry)) {
+            integer(connection.out, 0);
+            return;
+        }
+
+        invalidate(key, connection);
+        integer(connection.out, 1);
+    }
+
+    private void hello(List<byte[]> args, Connection connection) throws IOException {
+        if (!resp3 || args.size() < 2 || !string(args.get(1)).equals("3")) {
+            error(connection.out, "ERR unknown command 'HELLO'");
+            return;
+        }
+
+        connection.resp3 = true;
+        OutputStream out = connection.out;
+        out.write("%7\r\n".getBytes(StandardCharsets.UTF_8));
+        bulk(out, bytes("server"));
+        bulk(out, bytes("redis"));
+        bulk(out, bytes("version"));
+        bulk(out, bytes("7.0.0"));
+        bulk(out, bytes("proto"));
+        integer(out, 3);
+        bulk(out, bytes("id"));
+        integer(out, connection.hashCode());
+        bulk(out, bytes("mode"));
+        bulk(out, bytes("standalone"));
+        bulk(out, bytes("role"));
+        bulk(out, bytes("master"));
+        bulk(out, bytes("modules"));
+        array(out, 0);
+    }
+
+    // only CLIENT TRACKING ON BCAST [PREFIX prefix ...] [NOLOOP], in any order
+    private void client(List<byte[]> args, Connection connection) throws IOException {
+        List<String> options = args.stream().skip(1).map(StubRedis::string).toList();
+        if (!connection.resp3 || options.size() < 3 || !options.get(0).equalsIgnoreCase("TRACKING")
+            || !options.get(1).equalsIgnoreCase("ON") || options.stream().noneMatch("BCAST"::equalsIgnoreCase)) {
+            error(connection.out, "ERR unknown command 'CLIENT'");
+            return;
+        }
+
+        for (int i = 2; i + 1 < options.size(); i++) {
+            if (options.get(i).equalsIgnoreCase("PREFIX")) {
+                connection.prefixes.add(options.get(++i));
+            }
+        }
+        connection.noloop = options.stream().anyMatch("NOLOOP"::equalsIgnoreCase);
+        tracking.add(connection);
+        simple(connection.out, "OK");
+    }
+
+    // a null key means every key
+    private void invalidate(String key, Connection origin) throws IOException {
+        for (Connection connection : tracking) {
+            if (key != null && connection.prefixes.stream().noneMatch(key::startsWith)
+                || connection == origin && connection.noloop) {
+                continue;
+            }
+
+            OutputStream out = connection.out;
+            synchronized (out) {
+                out.write(">2\r\n".getBytes(StandardCharsets.UTF_8));
+                bulk(out, bytes("invalidate"));
+                if (key == null) {
+                    out.write("_\r\n".getBytes(StandardCharsets.UTF_8));
+                } else {
+                    array(out, 1);
+                    bulk(out, bytes(key));
+                }
+                out.flush();
+            }
+        }
+    }
+
+    private byte[] get(String key) {
+        Entry entry = live(key);
+        return entry == null ? null : entry.value;
+    }
+
+    private Entry live(String key) {
+        Entry entry = data.get(key);
+        if (entry != null && entry.expiresAt != 0 && entry.expiresAt <= System.currentTimeMillis()) {
+            data.remove(key, entry);
+            return null;
+        }
+
+        return entry;
+    }
+
+    private static List<byte[]> readCommand(InputStream in) throws IOException {
+        String header = readLine(in);
+        if (header.charAt(0) != '*') {
+            throw new IOException("Inline commands are not supported: " + header);
+        }
+
+        int count = Integer.parseInt(header.substring(1));
+        List<byte[]> args = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int length = Integer.parseInt(readLine(in).substring(1));
+            args.add(in.readNBytes(length));
+            readLine(in);
+        }
+
+        return args;
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != '\r') {
+            if (b == -1) {
+                throw new EOFException();
+            }
+            line.write(b);
+        }
+        in.read();
+
+        return line.toString(StandardCharsets.UTF_8);
+    }
+
+    private static void sleep(Duration duration) throws InterruptedException {
+        if (!duration.isZero()) {
+            Thread.sleep(duration.toMillis());
+        }
+    }
+
+    private static String string(byte[] bytes) {
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] bytes(String string) {
+        return string.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void simple(OutputStream out, String value) throws IOException {
+        out.write(("+" + value + "\r\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void error(OutputStream out, String message) throws IOException {
+        out.write(("-" + message + "\r\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void integer(OutputStream out, long value) throws IOException {
+        out.write((":" + value + "\r\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void array(OutputStream out, int size) throws IOException {
+        out.write(("*" + size + "\r\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void bulk(OutputStream out, byte[] value) throws IOException {
+        if (value == null) {
+            out.write("$-1\r\n".getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+
+        out.write(("$" + value.length + "\r\n").getBytes(StandardCharsets.UTF_8));
+        out.write(value);
+        out.write("\r\n".getBytes(StandardCharsets.UTF_8));
+    }
+
+    private record Entry(byte[] value, long expiresAt) {
+    }
+
+    private static class Connection {
+
+        private final OutputStream out;
+
+        private final List<String> prefixes = new CopyOnWriteArrayList<>();
+
+        private volatile boolean resp3;
+
+        private volatile boolean noloop;
+
+        private Connection(OutputStream out) {
+            this.out = out;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.reactive.api.track;
+
+import com.reactive.api.client.Deadline;
+import com.reactive.api.client.HedgeBudget;
+import com.reactive.api.config.ConfigProperties;
+import com.reactive.api.standin.LatencyDistribution;
+import com.reactive.api.standin.StubBackend;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DefaultTrackClientTest {
+
+    private final StubBackend backend = new StubBackend(LatencyDistribution.fixed(Duration.ofSeconds(1)), 42);
+
+    private final ConfigProperties properties = new ConfigProperties();
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+
+    private DefaultTrackClient client;
+
+    @BeforeEach
+    void connect() {
+        properties.setTrackBaseUrl("http://localhost:" + backend.port());
+        properties.setTrackStatusUrl("track-status?orderNumber={orderNumber}");
+        properties.setTrackStatusTimeout(Duration.ofSeconds(2));
+
+        client = new DefaultTrackClient(properties, WebClient.builder(), new HedgeBudget(properties), registry);
+    }
+
+    @AfterEach
+    void disconnect() {
+        backend.stop();
+    }
+
+    @Test
+    void whenDeadlineCutsTheCall_expectNoFallback() {
+        StepVerifier.create(client.getTrack("1").contextWrite(Deadline.after(Duration.ofMillis(500))::addTo))
+            .verifyComplete();
+    }
+
+    @Test
+    void whenShortDeadlineCallerSharesTheCall_expectOtherCallerToGetTheAnswer() {
+        // the short deadline caller comes first, so it starts the call the other one joins
+        CompletableFuture<Track> shortDeadline = client.getTrack("2")
+            .contextWrite(Deadline.after(Duration.ofMillis(500))::addTo)
+            .toFuture();
+        CompletableFuture<Track> normal = client.getTrack("2").toFuture();
+
+        assertNull(shortDeadline.join());
+        assertTrue(normal.join().getStatus().isPresent());
+        assertEquals(1, backend.calls(StubBackend.TRACK_STATUS));
+    }
+
+    @Test
+    void whenDeadlineHasPassed_expectNoFallback() {
+        StepVerifier.create(client.getTrack("1").contextWrite(Deadline.after(Duration.ZERO)::addTo))
+            .verifyComplete();
+    }
+}